@@ -0,0 +1,55 @@
+package UrlShortener.Benchmark.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import UrlShortener.Codec.Base62;
+import UrlShortener.Service.URLShortenerService;
+
+// Key encoding: the String-returning encode, the allocation-free encode into a caller buffer,
+// decode, and the full short URL as the service builds it. Ids are random 1..2^40 so key
+// lengths vary as they do in a long-running deployment.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base62Benchmark {
+    private final char[] buffer = new char[Base62.MAX_LENGTH];
+    private final String key = Base62.encode(916_132_831L);
+
+    @Benchmark
+    public String encodeBase62() {
+        return Base62.encode(id());
+    }
+
+    @Benchmark
+    public int encodeBase62IntoBuffer() {
+        return Base62.encode(id(), buffer, 0);
+    }
+
+    @Benchmark
+    public long decodeBase62() {
+        return Base62.decode(key);
+    }
+
+    @Benchmark
+    public String toShortUrl() {
+        return URLShortenerService.toShortUrl(id());
+    }
+
+    private static long id() {
+        return ThreadLocalRandom.current().nextLong(1, 1L << 40);
+    }
+}
@@ -0,0 +1,19 @@
+package UrlShortener.Benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Same arguments as the stock JMH main, with the gc profiler always on so every result comes
+// with its allocation rate (gc.alloc.rate.norm = bytes per operation).
+// Usage: java -jar target/benchmarks.jar [jmh options] [benchmark regex]
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
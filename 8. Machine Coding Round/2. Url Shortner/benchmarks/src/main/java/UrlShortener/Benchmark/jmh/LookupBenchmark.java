@@ -0,0 +1,74 @@
+package UrlShortener.Benchmark.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import UrlShortener.Service.URLShortenerService;
+
+// getLongUrl on a cache hit, on a cache miss that falls through to the store, and for a
+// well-formed key that was never issued. Hits use a small hot set that fits the cache; misses
+// draw from the whole store, which is many times the cache capacity.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int HOT = 1024;
+
+    @Param({"1000000"})
+    public int preloaded;
+
+    private URLShortenerService service;
+    private String[] shortUrls;
+    private String[] unknown;
+
+    @Setup
+    public void setup() {
+        service = new URLShortenerService.Builder()
+                .cacheCapacity(HOT * 2)
+                .build();
+        shortUrls = new String[preloaded];
+        for (int i = 0; i < preloaded; i++) {
+            shortUrls[i] = service.shortenUrl("https://www.example.com/preloaded/" + i);
+        }
+        unknown = new String[HOT];
+        for (int i = 0; i < HOT; i++) {
+            unknown[i] = URLShortenerService.toShortUrl(preloaded + 1_000_000L + i);
+        }
+        // Let the frequency-aware cache admit the hot set
+        for (int round = 0; round < 8; round++) {
+            for (int i = 0; i < HOT; i++) {
+                service.getLongUrl(shortUrls[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public String cacheHit() {
+        return service.getLongUrl(shortUrls[ThreadLocalRandom.current().nextInt(HOT)]);
+    }
+
+    @Benchmark
+    public String cacheMiss() {
+        return service.getLongUrl(shortUrls[ThreadLocalRandom.current().nextInt(HOT, preloaded)]);
+    }
+
+    @Benchmark
+    public String unknownKey() {
+        return service.getLongUrl(unknown[ThreadLocalRandom.current().nextInt(HOT)]);
+    }
+}
@@ -0,0 +1,90 @@
+package UrlShortener.Benchmark.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import UrlShortener.Service.URLShortenerService;
+
+// Mixed traffic against one shared service: writePercent of the operations shorten a new URL,
+// the rest resolve a uniformly chosen existing key. Run at 1, 4 and 16 threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedBenchmark {
+    @Param({"1", "10", "50"})
+    public int writePercent;
+
+    @Param({"1000000"})
+    public int preloaded;
+
+    private URLShortenerService service;
+    private String[] shortUrls;
+    private String[] fresh;
+    private final AtomicInteger freshIndex = new AtomicInteger();
+
+    // Pre-built new URLs, as in ShortenBenchmark, so writes do not pay for building the string.
+    // 4M of them per iteration is well above what one 2s iteration consumes.
+    @Setup(Level.Trial)
+    public void createUrls() {
+        fresh = new String[1 << 22];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = "https://www.example.com/new/" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        service = new URLShortenerService.Builder()
+                .cacheCapacity(preloaded / 10)
+                .build();
+        shortUrls = new String[preloaded];
+        for (int i = 0; i < preloaded; i++) {
+            shortUrls[i] = service.shortenUrl("https://www.example.com/preloaded/" + i);
+        }
+        freshIndex.set(0);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String threads1() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String threads4() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String threads16() {
+        return operation();
+    }
+
+    private String operation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < writePercent) {
+            return service.shortenUrl(fresh[freshIndex.getAndIncrement() & (fresh.length - 1)]);
+        }
+        return service.getLongUrl(shortUrls[random.nextInt(shortUrls.length)]);
+    }
+}
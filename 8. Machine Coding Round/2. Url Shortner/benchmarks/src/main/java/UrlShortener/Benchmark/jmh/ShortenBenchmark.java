@@ -0,0 +1,74 @@
+package UrlShortener.Benchmark.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import UrlShortener.Service.URLShortenerService;
+
+// shortenUrl for a URL never seen before (id allocation + both indexes + cache) and for one
+// that is already stored (reverse lookup only). The store is rebuilt every iteration so the
+// growing number of new mappings does not carry over between iterations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortenBenchmark {
+    @Param({"100000"})
+    public int preloaded;
+
+    private URLShortenerService service;
+    private String[] urls;
+    private String[] fresh;
+    private final AtomicInteger freshIndex = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void createUrls() {
+        urls = new String[preloaded];
+        for (int i = 0; i < preloaded; i++) {
+            urls[i] = "https://www.example.com/preloaded/" + i;
+        }
+        fresh = new String[1 << 22];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = "https://www.example.com/fresh/" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createService() {
+        service = new URLShortenerService.Builder()
+                .cacheCapacity(preloaded / 10)
+                .build();
+        for (String url : urls) {
+            service.shortenUrl(url);
+        }
+        freshIndex.set(0);
+    }
+
+    // Pre-built strings, so the allocation rate is the shortener's own. 4M of them per
+    // iteration is well above what one 2s iteration consumes.
+    @Benchmark
+    public String shortenNewUrl() {
+        return service.shortenUrl(fresh[freshIndex.getAndIncrement() & (fresh.length - 1)]);
+    }
+
+    @Benchmark
+    public String shortenDuplicateUrl() {
+        return service.shortenUrl(urls[ThreadLocalRandom.current().nextInt(urls.length)]);
+    }
+}
@@ -0,0 +1,319 @@
+package UrlShortener.Analytics;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Per-link redirect counts and heavy hitters with bounded memory.
+//
+// Redirect path: recordHit claims a slot in one of several striped ring buffers with a single
+// CAS and publishes the id; no lock and no allocation. A stripe that is half full is drained
+// by the producer itself if the drain lock is free (tryLock, as in WTinyLfuCache); a full
+// stripe drops the hit (counted in droppedHits) rather than blocking the redirect.
+//
+// A background drainer (and every query) empties the stripes under that lock, pre-aggregates the
+// batch and feeds it into an all-time Count-Min sketch plus one sketch per minute (ring of 60)
+// and per hour (ring of 24). Each sketch keeps a TopK heap of its heavy hitters. Hits are
+// stamped with the drain time, so bucket boundaries are accurate to the drain interval.
+//
+// Memory is fixed at construction: (1 + 60 + 24) sketches of 4 * sketchWidth longs and as many
+// heaps of topCapacity ids, however many distinct links are clicked.
+public class ClickAnalytics implements Closeable {
+    private static final int MINUTES = 60;
+    private static final int HOURS = 24;
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final int BUFFER_SIZE = 1 << 14;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final LongAdder dropped = new LongAdder();
+    private final LongSupplier clock;
+
+    // Aggregated state, guarded by drainLock
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final CountMinSketch allTime;
+    private final TopK allTimeTop;
+    private final Bucket[] minutes = new Bucket[MINUTES];
+    private final Bucket[] hours = new Bucket[HOURS];
+    private final LongLongMap batch = new LongLongMap(BUFFER_SIZE);
+    private long totalClicks;
+
+    private final ScheduledExecutorService drainer;
+
+    public ClickAnalytics() {
+        this(4096, 1000, Duration.ofMillis(50), System::currentTimeMillis);
+    }
+
+    // sketchWidth bounds the overcount of a per-link estimate to about clicks / sketchWidth;
+    // topCapacity should be several times the largest k asked of topLinks.
+    // drainInterval of null disables the background drainer (queries still drain).
+    public ClickAnalytics(int sketchWidth, int topCapacity, Duration drainInterval, LongSupplier clock) {
+        if (sketchWidth <= 0 || topCapacity <= 0) {
+            throw new IllegalArgumentException("sketchWidth and topCapacity must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+        this.clock = clock;
+        this.allTime = new CountMinSketch(sketchWidth);
+        this.allTimeTop = new TopK(topCapacity);
+        for (int i = 0; i < MINUTES; i++) {
+            minutes[i] = new Bucket(sketchWidth, topCapacity);
+        }
+        for (int i = 0; i < HOURS; i++) {
+            hours[i] = new Bucket(sketchWidth, topCapacity);
+        }
+
+        if (drainInterval != null) {
+            drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "click-analytics-drainer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1, drainInterval.toMillis());
+            drainer.scheduleWithFixedDelay(this::drain, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            drainer = null;
+        }
+    }
+
+    // Called on every successful redirect
+    public void recordHit(long id) {
+        Stripe stripe = stripes[(int) Fingerprint.mix(Thread.currentThread().getId()) & stripeMask];
+        long tail;
+        do {
+            tail = stripe.tail.get();
+            if (tail - stripe.head >= BUFFER_SIZE) {
+                dropped.increment();
+                return;
+            }
+        } while (!stripe.tail.compareAndSet(tail, tail + 1));
+        stripe.slots.setRelease((int) (tail & BUFFER_MASK), id + 1); // 0 marks an unpublished slot
+        if (tail - stripe.head >= DRAIN_THRESHOLD && drainLock.tryLock()) {
+            try {
+                drainLocked();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    // Moves buffered hits into the sketches; runs on the drainer thread and before every query
+    public void drain() {
+        drainLock.lock();
+        try {
+            drainLocked();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // All-time click estimate for one link (never below the true count)
+    public long clicks(long id) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            return allTime.estimate(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Click estimate over the trailing window: minute buckets up to an hour, hour buckets up to a day
+    public long clicks(long id, Duration window) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            long sum = 0;
+            for (Bucket bucket : bucketsFor(window)) {
+                sum += bucket.sketch.estimate(id);
+            }
+            return sum;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public long totalClicks() {
+        drainLock.lock();
+        try {
+            drainLocked();
+            return totalClicks;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public long totalClicks(Duration window) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            long sum = 0;
+            for (Bucket bucket : bucketsFor(window)) {
+                sum += bucket.total;
+            }
+            return sum;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // The k most clicked links since startup, most clicked first
+    public List<LinkCount> topLinks(int k) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            List<LinkCount> entries = allTimeTop.entries();
+            entries.sort(Comparator.comparingLong(LinkCount::count).reversed());
+            return new ArrayList<>(entries.subList(0, Math.min(k, entries.size())));
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // The k most clicked links in the trailing window: candidates are the union of the bucket
+    // heaps, each scored by the sum of its estimates over every bucket in the window
+    public List<LinkCount> topLinks(int k, Duration window) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            List<Bucket> buckets = bucketsFor(window);
+            LongLongMap candidates = new LongLongMap(buckets.size() * 64);
+            for (Bucket bucket : buckets) {
+                bucket.top.forEachId(id -> candidates.put(id, 0));
+            }
+            List<LinkCount> entries = new ArrayList<>(candidates.size());
+            candidates.forEach((id, unused) -> {
+                long sum = 0;
+                for (Bucket bucket : buckets) {
+                    sum += bucket.sketch.estimate(id);
+                }
+                entries.add(new LinkCount(id, sum));
+            });
+            entries.sort(Comparator.comparingLong(LinkCount::count).reversed());
+            return new ArrayList<>(entries.subList(0, Math.min(k, entries.size())));
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // Hits lost because a stripe was full when the redirect happened
+    public long droppedHits() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        if (drainer != null) {
+            drainer.shutdown();
+        }
+        drain();
+    }
+
+    private void drainLocked() {
+        for (Stripe stripe : stripes) {
+            long head = stripe.head;
+            long tail = stripe.tail.get();
+            while (head < tail) {
+                int index = (int) (head & BUFFER_MASK);
+                long value = stripe.slots.getAcquire(index);
+                if (value == 0) {
+                    break; // slot claimed but not yet published; picked up by the next drain
+                }
+                stripe.slots.set(index, 0);
+                batch.add(value - 1, 1);
+                head++;
+            }
+            stripe.head = head;
+        }
+        if (batch.size() == 0) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        Bucket minute = bucket(minutes, now / MINUTE_MILLIS);
+        Bucket hour = bucket(hours, now / HOUR_MILLIS);
+        batch.forEach((id, count) -> {
+            allTimeTop.offer(id, allTime.add(id, count));
+            minute.add(id, count);
+            hour.add(id, count);
+            totalClicks += count;
+        });
+        batch.clear();
+    }
+
+    private static Bucket bucket(Bucket[] ring, long epoch) {
+        Bucket bucket = ring[(int) (epoch % ring.length)];
+        if (bucket.epoch != epoch) {
+            bucket.reset(epoch);
+        }
+        return bucket;
+    }
+
+    private List<Bucket> bucketsFor(Duration window) {
+        long millis = window.toMillis();
+        if (millis <= 0 || millis > HOURS * HOUR_MILLIS) {
+            throw new IllegalArgumentException("Window must be between 1ms and 24 hours: " + window);
+        }
+        Bucket[] ring = millis <= MINUTES * MINUTE_MILLIS ? minutes : hours;
+        long unit = ring == minutes ? MINUTE_MILLIS : HOUR_MILLIS;
+        long current = clock.getAsLong() / unit;
+        long oldest = current - (millis + unit - 1) / unit + 1; // includes the partial current bucket
+        List<Bucket> buckets = new ArrayList<>();
+        for (Bucket bucket : ring) {
+            if (bucket.epoch >= oldest && bucket.epoch <= current) {
+                buckets.add(bucket);
+            }
+        }
+        return buckets;
+    }
+
+    // Bounded MPSC ring: producers CAS the tail, the drainer owns the head
+    private static final class Stripe {
+        final AtomicLongArray slots = new AtomicLongArray(BUFFER_SIZE);
+        final AtomicLong tail = new AtomicLong();
+        volatile long head;
+    }
+
+    private static final class Bucket {
+        final CountMinSketch sketch;
+        final TopK top;
+        long epoch = -1;
+        long total;
+
+        Bucket(int sketchWidth, int topCapacity) {
+            this.sketch = new CountMinSketch(sketchWidth);
+            this.top = new TopK(topCapacity);
+        }
+
+        void add(long id, long count) {
+            top.offer(id, sketch.add(id, count));
+            total += count;
+        }
+
+        void reset(long epoch) {
+            sketch.clear();
+            top.clear();
+            total = 0;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package UrlShortener.Analytics;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Count-Min Sketch over link ids with 64-bit counters: estimates never undercount, and
+// overcount by at most total / width with high probability. Conservative update (only the
+// smallest counters are raised) tightens that further. Memory is depth * width longs however
+// many distinct ids are counted. Single writer (the analytics aggregator).
+final class CountMinSketch {
+    private static final int DEPTH = 4;
+
+    private final long[][] rows;
+    private final int mask;
+
+    CountMinSketch(int width) {
+        int size = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+        this.rows = new long[DEPTH][size];
+        this.mask = size - 1;
+    }
+
+    // Returns the new estimate for id
+    long add(long id, long count) {
+        long hash = Fingerprint.mix(id);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, rows[row][index(hash, row)]);
+        }
+        estimate += count;
+        for (int row = 0; row < DEPTH; row++) {
+            long[] counters = rows[row];
+            int index = index(hash, row);
+            if (counters[index] < estimate) {
+                counters[index] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    long estimate(long id) {
+        long hash = Fingerprint.mix(id);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, rows[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (long[] row : rows) {
+            java.util.Arrays.fill(row, 0);
+        }
+    }
+
+    private int index(long hash, int row) {
+        // Two independent 32-bit halves combined per row (Kirsch-Mitzenmacher)
+        return (int) ((hash + row * (hash >>> 32)) & mask);
+    }
+}
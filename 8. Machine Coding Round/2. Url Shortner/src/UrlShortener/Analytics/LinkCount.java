@@ -0,0 +1,20 @@
+package UrlShortener.Analytics;
+
+// A link and its estimated click count (Count-Min: never below the true count)
+public final class LinkCount {
+    private final long id;
+    private final long count;
+
+    public LinkCount(long id, long count) {
+        this.id = id;
+        this.count = count;
+    }
+
+    public long id() { return id; }
+    public long count() { return count; }
+
+    @Override
+    public String toString() {
+        return id + "=" + count;
+    }
+}
@@ -0,0 +1,118 @@
+package UrlShortener.Analytics;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Open-addressing long -> long map (linear probing, backward-shift deletion) so the drain path
+// does not box an id per click. Keys must be >= 0; -1 marks an empty slot. Single threaded.
+final class LongLongMap {
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    long get(long key, long missing) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                return missing;
+            }
+        }
+    }
+
+    void put(long key, long value) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = value;
+                grow();
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    void add(long key, long delta) {
+        put(key, get(key, 0) + delta);
+    }
+
+    void remove(long key) {
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift later entries of the probe run back so lookups never stop at a hole
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Entry entry) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                entry.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    void clear() {
+        if (size > 0) {
+            java.util.Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private int slot(long key) {
+        return (int) Fingerprint.mix(key) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        java.util.Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    interface Entry {
+        void accept(long key, long value);
+    }
+}
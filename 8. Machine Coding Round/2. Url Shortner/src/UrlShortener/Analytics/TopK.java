@@ -0,0 +1,101 @@
+package UrlShortener.Analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Heavy-hitter candidates for a Count-Min sketch (the "CM-heap" of Cormode & Muthukrishnan):
+// a min-heap of at most capacity ids keyed by their latest sketch estimate. An id outside the
+// heap is admitted only when its estimate beats the current minimum, so the long tail of rarely
+// clicked links costs one comparison. Primitive id -> heap position map. Single writer.
+final class TopK {
+    private final int capacity;
+    private final long[] ids;
+    private final long[] counts;
+    private final LongLongMap positions;
+    private int size;
+
+    TopK(int capacity) {
+        this.capacity = capacity;
+        this.ids = new long[capacity];
+        this.counts = new long[capacity];
+        this.positions = new LongLongMap(capacity);
+    }
+
+    // estimate only grows for a given id, so an update moves it down the min-heap
+    void offer(long id, long estimate) {
+        if (size == capacity && estimate <= counts[0]) {
+            return; // not a heavy hitter (and if tracked, its count cannot have grown past the minimum)
+        }
+        int position = (int) positions.get(id, -1);
+        if (position >= 0) {
+            counts[position] = estimate;
+            siftDown(position);
+        } else if (size < capacity) {
+            ids[size] = id;
+            counts[size] = estimate;
+            positions.put(id, size);
+            siftUp(size++);
+        } else {
+            positions.remove(ids[0]);
+            ids[0] = id;
+            counts[0] = estimate;
+            positions.put(id, 0);
+            siftDown(0);
+        }
+    }
+
+    void forEachId(java.util.function.LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(ids[i]);
+        }
+    }
+
+    List<LinkCount> entries() {
+        List<LinkCount> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new LinkCount(ids[i], counts[i]));
+        }
+        return entries;
+    }
+
+    void clear() {
+        positions.clear();
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a], count = counts[a];
+        ids[a] = ids[b];
+        counts[a] = counts[b];
+        ids[b] = id;
+        counts[b] = count;
+        positions.put(ids[a], a);
+        positions.put(ids[b], b);
+    }
+}
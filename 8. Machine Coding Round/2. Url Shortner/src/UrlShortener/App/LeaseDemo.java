@@ -0,0 +1,102 @@
+package UrlShortener.App;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import UrlShortener.Id.FileLeaseStore;
+import UrlShortener.Id.LeasedIdAllocator;
+import UrlShortener.Service.URLShortenerService;
+
+// Several shortener instances share one lease file and shorten in parallel; the demo then
+// checks that no short key was produced twice.
+// Usage: LeaseDemo [instances] [urlsPerInstance] [threads|processes]
+public class LeaseDemo {
+    private static final int BLOCK_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            runInstance(Path.of(args[1]), args[2], Integer.parseInt(args[3]), Path.of(args[4]));
+            return;
+        }
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int perInstance = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        boolean processes = args.length > 2 && args[2].equals("processes");
+        Path directory = Files.createTempDirectory("lease-demo");
+        Path leaseFile = directory.resolve("ids.lease");
+
+        long start = System.nanoTime();
+        List<Path> outputs = new ArrayList<>();
+        if (processes) {
+            List<Process> children = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                Path output = directory.resolve("instance-" + i + ".keys");
+                outputs.add(output);
+                children.add(new ProcessBuilder(
+                        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                        "-cp", System.getProperty("java.class.path"), LeaseDemo.class.getName(),
+                        "--child", leaseFile.toString(), "instance-" + i, String.valueOf(perInstance), output.toString())
+                        .inheritIO().start());
+            }
+            for (Process child : children) {
+                if (child.waitFor() != 0) {
+                    throw new IllegalStateException("Instance failed with exit code " + child.exitValue());
+                }
+            }
+        } else {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                Path output = directory.resolve("instance-" + i + ".keys");
+                outputs.add(output);
+                String owner = "instance-" + i;
+                Thread thread = new Thread(() -> {
+                    try {
+                        runInstance(leaseFile, owner, perInstance, output);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Set<String> seen = new HashSet<>();
+        long duplicates = 0;
+        for (Path output : outputs) {
+            for (String key : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+                if (!seen.add(key)) {
+                    duplicates++;
+                }
+            }
+        }
+        System.out.printf("%d %s x %d urls: %d keys, %d duplicates, %.0f shortens/sec%n",
+                instances, processes ? "processes" : "threads", perInstance, seen.size(), duplicates,
+                instances * (double) perInstance / seconds);
+        System.out.println("Leases granted: " + Files.readAllLines(Path.of(leaseFile + ".log")).size());
+    }
+
+    // One independent shortener instance with its own store, leasing ids from the shared file
+    private static void runInstance(Path leaseFile, String owner, int count, Path output) throws IOException {
+        URLShortenerService service = new URLShortenerService.Builder()
+                .idAllocator(new LeasedIdAllocator(new FileLeaseStore(leaseFile), owner, BLOCK_SIZE))
+                .build();
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(service.shortenUrl("https://www.example.com/" + owner + "/" + i));
+                writer.newLine();
+            }
+        }
+    }
+}
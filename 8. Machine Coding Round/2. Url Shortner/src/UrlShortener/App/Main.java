@@ -0,0 +1,53 @@
+package UrlShortener.App;
+
+import UrlShortener.Analytics.ClickAnalytics;
+import UrlShortener.Analytics.LinkCount;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+
+public class Main {
+    public static void main(String[] args) {
+        URLShortenerService service = new URLShortenerService.Builder()
+                .cacheCapacity(5)
+                .store(new ChunkedArrayUrlStore())
+                .analytics(new ClickAnalytics())
+                .build();
+
+        // Test URLs
+        String[] urls = {
+            "https://www.example.com/some/long/url1",
+            "https://www.example.com/some/long/url2",
+            "https://openai.com/research/url3",
+            "https://github.com/openai/url4",
+            "https://stackoverflow.com/questions/url5",
+            "https://linkedin.com/in/user/url6",
+            "https://twitter.com/usecase/url7",
+            "https://facebook.com/profile/url8"
+        };
+
+        System.out.println("=== Shortening URLs ===");
+        for (String longUrl : urls) {
+            System.out.printf("  %s -> %s%n", longUrl, service.shortenUrl(longUrl));
+        }
+
+        System.out.println("\n=== Shortening a duplicate URL ===");
+        System.out.printf("  %s -> %s%n", urls[0], service.shortenUrl(urls[0]));
+
+        System.out.println("\n=== Retrieving URLs ===");
+        for (String shortUrl : new String[] {"https://short.ly/1", "https://short.ly/3", "https://short.ly/7", "5"}) {
+            System.out.printf("  %s -> %s%n", shortUrl, service.getLongUrl(shortUrl));
+        }
+
+        System.out.println("\n=== Testing Invalid URL ===");
+        System.out.println("  InvalidKey -> " + service.getLongUrl("https://short.ly/invalid"));
+        System.out.println("  Malformed  -> " + service.getLongUrl("https://short.ly/inv@lid"));
+
+        System.out.println("\n=== Click analytics ===");
+        for (int i = 0; i < 10; i++) {
+            service.getLongUrl("https://short.ly/2");
+        }
+        for (LinkCount link : service.getAnalytics().topLinks(3)) {
+            System.out.printf("  %s -> %d clicks%n", URLShortenerService.toShortUrl(link.id()), link.count());
+        }
+    }
+}
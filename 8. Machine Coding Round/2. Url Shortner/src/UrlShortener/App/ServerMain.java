@@ -0,0 +1,23 @@
+package UrlShortener.App;
+
+import UrlShortener.RateLimit.ClientRateLimiter;
+import UrlShortener.Server.RedirectServer;
+import UrlShortener.Service.URLShortenerService;
+
+// Usage: ServerMain [port] [shortensPerSecond per client, burst of 10x; default unlimited]
+//   curl -i -X POST --data 'https://www.example.com/some/long/url' http://localhost:8080/shorten
+//   curl -i http://localhost:8080/1
+public class ServerMain {
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        ClientRateLimiter limiter = args.length > 1
+                ? new ClientRateLimiter(Double.parseDouble(args[1]), (int) Math.ceil(Double.parseDouble(args[1]) * 10),
+                        1_000_000)
+                : null;
+        URLShortenerService service = new URLShortenerService();
+        RedirectServer server = new RedirectServer(service, port, Runtime.getRuntime().availableProcessors(), false,
+                limiter);
+        System.out.println("Listening on port " + server.start());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,119 @@
+package UrlShortener.Benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import UrlShortener.Analytics.ClickAnalytics;
+import UrlShortener.Analytics.LinkCount;
+import UrlShortener.Service.URLShortenerService;
+
+// getLongUrl throughput on Zipf-distributed links with and without click analytics, then the
+// accuracy of the analytics top-100 and per-link estimates against exact counts.
+// Usage: AnalyticsBenchmark [links] [threads] [secondsPerRun] [zipfExponent]
+public class AnalyticsBenchmark {
+    private static final int TOP = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        double exponent = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+
+        System.out.printf("links=%d threads=%d zipf=%.2f%n", links, threads, exponent);
+        double plain = run(links, threads, seconds, exponent, null, null);
+        System.out.printf("without analytics %12.0f ops/sec%n", plain);
+
+        ClickAnalytics analytics = new ClickAnalytics();
+        double tracked = run(links, threads, seconds, exponent, analytics, null);
+        System.out.printf("with analytics    %12.0f ops/sec (%.1f%%)%n", tracked, 100.0 * (tracked - plain) / plain);
+        analytics.close();
+
+        // Accuracy needs exact counts, which cost more than the analytics; measured separately
+        analytics = new ClickAnalytics();
+        AtomicLongArray exact = new AtomicLongArray(links + 1);
+        run(links, threads, 1, exponent, analytics, exact);
+        analytics.close();
+        report(analytics, exact);
+    }
+
+    private static double run(int links, int threads, int seconds, double exponent,
+                              ClickAnalytics analytics, AtomicLongArray exact) throws InterruptedException {
+        URLShortenerService.Builder builder = new URLShortenerService.Builder().cacheCapacity(links);
+        if (analytics != null) {
+            builder.analytics(analytics);
+        }
+        URLShortenerService service = builder.build();
+        String[] shortUrls = new String[links + 1];
+        for (int i = 1; i <= links; i++) {
+            shortUrls[i] = service.shortenUrl("https://www.example.com/article/" + i);
+        }
+
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                ZipfGenerator zipf = new ZipfGenerator(links, exponent, seed);
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 256; i++) {
+                        int rank = (int) zipf.next();
+                        service.getLongUrl(shortUrls[rank]);
+                        if (exact != null) {
+                            exact.incrementAndGet(rank);
+                        }
+                    }
+                    done += 256;
+                }
+                ops.add(done);
+            });
+            workers[t].start();
+        }
+        deadline[0] = System.nanoTime() + seconds * 1_000_000_000L;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / (double) seconds;
+    }
+
+    private static void report(ClickAnalytics analytics, AtomicLongArray exact) {
+        long total = 0;
+        for (int i = 0; i < exact.length(); i++) {
+            total += exact.get(i);
+        }
+        long dropped = analytics.droppedHits();
+        System.out.printf("%nclicks=%d recorded=%d dropped=%d%n", total, analytics.totalClicks(), dropped);
+
+        // Ids equal Zipf ranks here, so the true top-100 is ids 1..100
+        List<LinkCount> top = analytics.topLinks(TOP, Duration.ofHours(1));
+        int correct = 0;
+        double worstError = 0;
+        for (LinkCount link : top) {
+            if (link.id() <= TOP) {
+                correct++;
+            }
+            long truth = exact.get((int) link.id());
+            worstError = Math.max(worstError, Math.abs(link.count() - truth) / (double) Math.max(1, truth));
+        }
+        System.out.printf("top-%d recall %d%%, worst relative count error %.2f%%%n", TOP, correct * 100 / TOP, worstError * 100);
+
+        double sketchError = 0;
+        for (int id = 1; id < exact.length(); id += Math.max(1, exact.length() / 1000)) {
+            sketchError = Math.max(sketchError, analytics.clicks(id) - exact.get(id));
+        }
+        System.out.printf("worst per-link overcount over sampled links %.0f clicks (%.4f%% of total)%n",
+                sketchError, 100.0 * sketchError / total);
+        System.out.println("first 5: " + top.subList(0, Math.min(5, top.size())));
+    }
+}
@@ -0,0 +1,56 @@
+package UrlShortener.Benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import UrlShortener.Persistence.FsyncPolicy;
+import UrlShortener.Persistence.PersistenceManager;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+
+// Import throughput: shortenUrl in a loop vs. shortenAll in batches, in memory and with a
+// per-write-fsync WAL (where batching turns one fsync per link into one per batch).
+// Usage: BatchBenchmark [urls] [batchSize]
+public class BatchBenchmark {
+    public static void main(String[] args) throws Exception {
+        int urls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        System.out.printf("urls=%d batchSize=%d%n", urls, batchSize);
+        System.out.println("mode                       single/sec    batch/sec");
+        System.out.printf("in memory             %14.0f %12.0f%n", run(urls, batchSize, false, false), run(urls, batchSize, true, false));
+        int durableUrls = Math.min(urls, 20_000); // per-write fsync is slow, keep the single run short
+        System.out.printf("WAL fsync per write   %14.0f %12.0f%n", run(durableUrls, batchSize, false, true), run(durableUrls, batchSize, true, true));
+    }
+
+    private static double run(int urls, int batchSize, boolean batched, boolean durable) throws Exception {
+        Path directory = Files.createTempDirectory("batch-bench");
+        ChunkedArrayUrlStore store = new ChunkedArrayUrlStore(urls);
+        try (PersistenceManager persistence = PersistenceManager.open(directory, FsyncPolicy.perWrite(), store)) {
+            URLShortenerService.Builder builder = new URLShortenerService.Builder().store(store);
+            if (durable) {
+                builder.journal(persistence.journal());
+            }
+            URLShortenerService service = builder.build();
+            long start = System.nanoTime();
+            if (batched) {
+                service.shortenAll(IntStream.range(0, urls).mapToObj(BatchBenchmark::url), batchSize, (longUrl, shortUrl) -> { });
+            } else {
+                List<String> shortUrls = new ArrayList<>(urls);
+                for (int i = 0; i < urls; i++) {
+                    shortUrls.add(service.shortenUrl(url(i)));
+                }
+            }
+            return urls * 1e9 / (System.nanoTime() - start);
+        } finally {
+            PersistenceBenchmark.deleteRecursively(directory);
+        }
+    }
+
+    private static String url(int i) {
+        return "https://shop.example.com/catalog/item/" + i + "?ref=import";
+    }
+}
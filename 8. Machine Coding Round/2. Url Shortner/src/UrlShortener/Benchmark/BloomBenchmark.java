@@ -0,0 +1,45 @@
+package UrlShortener.Benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.BloomGuardedUrlStore;
+import UrlShortener.Store.MappedUrlStore;
+import UrlShortener.Store.UrlStore;
+
+// shortenUrl of brand-new URLs against a disk-resident MappedUrlStore, with and without the
+// Bloom filter in front of the reverse lookup. Also shows filter rebuild time on startup.
+// Usage: BloomBenchmark [existingUrls] [newUrls] [falsePositiveRate]
+public class BloomBenchmark {
+    public static void main(String[] args) throws Exception {
+        int existing = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int fresh = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        double fpRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+
+        for (boolean guarded : new boolean[] {false, true}) {
+            Path directory = Files.createTempDirectory("bloom-bench");
+            try (MappedUrlStore mapped = MappedUrlStore.open(directory, existing + fresh)) {
+                for (int i = 1; i <= existing; i++) {
+                    mapped.put(i, "https://www.example.com/existing/" + i);
+                }
+                long start = System.nanoTime();
+                UrlStore store = guarded ? new BloomGuardedUrlStore(mapped, fpRate) : mapped;
+                double rebuild = (System.nanoTime() - start) / 1e6;
+                URLShortenerService service = new URLShortenerService.Builder()
+                        .store(store)
+                        .firstId(existing + 1)
+                        .build();
+
+                start = System.nanoTime();
+                for (int i = 0; i < fresh; i++) {
+                    service.shortenUrl("https://www.example.com/new/" + i);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%-9s new-URL shortens/sec=%.0f%s%n", guarded ? "bloom" : "no bloom", fresh / seconds,
+                        guarded ? String.format(" rebuild=%.0fms%n          %s", rebuild, ((BloomGuardedUrlStore) store).stats()) : "");
+            }
+            PersistenceBenchmark.deleteRecursively(directory);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package UrlShortener.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import UrlShortener.Cluster.ShardedShortener;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.InMemoryUrlStore;
+
+// Live rebalancing of a ShardedShortener: worker threads keep reading preloaded links, re-shortening
+// them and shortening new ones while a shard is added and then another removed. Reports throughput
+// per phase, how many mappings each change moved (ideally 1/n of them), and every read or re-shorten
+// that came back wrong; at the end checks that each mapping is stored on exactly one shard.
+// Usage: ClusterBenchmark [shards] [preloadedLinks] [threads] [secondsPerPhase]
+public class ClusterBenchmark {
+    private static volatile boolean stop;
+
+    public static void main(String[] args) throws InterruptedException {
+        int shardCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int preload = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        ShardedShortener.Builder builder = new ShardedShortener.Builder();
+        for (int s = 0; s < shardCount; s++) {
+            builder.shard("shard-" + s, newShard());
+        }
+        ShardedShortener cluster = builder.build();
+        String[] longUrls = new String[preload];
+        String[] shortUrls = new String[preload];
+        for (int i = 0; i < preload; i++) {
+            longUrls[i] = "https://www.example.com/preloaded/" + i;
+            shortUrls[i] = cluster.shortenUrl(longUrls[i]);
+        }
+        System.out.printf("shards=%d preloaded=%d threads=%d slots=%s%n", shardCount, preload, threads,
+                cluster.slotsPerShard());
+
+        LongAdder ops = new LongAdder();
+        LongAdder wrong = new LongAdder();
+        List<List<String[]>> created = new ArrayList<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            List<String[]> mine = new ArrayList<>();
+            created.add(mine);
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long fresh = 0;
+                while (!stop) {
+                    for (int i = 0; i < 256; i++) {
+                        int pick = random.nextInt(preload);
+                        int op = random.nextInt(100);
+                        if (op < 80) {
+                            if (!cluster.getLongUrl(shortUrls[pick]).equals(longUrls[pick])) {
+                                wrong.increment();
+                            }
+                        } else if (op < 90) {
+                            if (!cluster.shortenUrl(longUrls[pick]).equals(shortUrls[pick])) {
+                                wrong.increment(); // dedupe broken: the URL got a second key
+                            }
+                        } else {
+                            String longUrl = "https://www.example.com/live/" + thread + "/" + fresh++;
+                            mine.add(new String[] {longUrl, cluster.shortenUrl(longUrl)});
+                        }
+                    }
+                    ops.add(256);
+                }
+            });
+            workers[t].start();
+        }
+
+        System.out.println("phase                      seconds      ops/sec  moved mappings  moved %");
+        phase("steady, " + shardCount + " shards", ops, seconds);
+        long before = cluster.movedMappings();
+        long start = System.nanoTime();
+        long sum = ops.sum();
+        cluster.addShard("shard-" + shardCount, newShard());
+        report("add shard-" + shardCount, ops, sum, start, cluster.movedMappings() - before, cluster);
+        phase("steady, " + (shardCount + 1) + " shards", ops, seconds);
+        before = cluster.movedMappings();
+        start = System.nanoTime();
+        sum = ops.sum();
+        cluster.removeShard("shard-0");
+        report("remove shard-0", ops, sum, start, cluster.movedMappings() - before, cluster);
+        phase("steady, " + shardCount + " shards", ops, seconds);
+
+        stop = true;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long links = preload;
+        for (List<String[]> mine : created) {
+            for (String[] pair : mine) {
+                links++;
+                if (!cluster.getLongUrl(pair[1]).equals(pair[0]) || !cluster.shortenUrl(pair[0]).equals(pair[1])) {
+                    wrong.increment();
+                }
+            }
+        }
+        long stored = 0;
+        for (String name : cluster.ring().nodes()) {
+            stored += cluster.shard(name).getStore().size();
+        }
+        System.out.printf("slots=%s%n", cluster.slotsPerShard());
+        System.out.printf("links=%d stored=%d wrong results=%d%n", links, stored, wrong.sum());
+    }
+
+    private static URLShortenerService newShard() {
+        return new URLShortenerService.Builder()
+                .store(new InMemoryUrlStore())
+                .cacheCapacity(10_000)
+                .build();
+    }
+
+    private static void phase(String name, LongAdder ops, int seconds) throws InterruptedException {
+        long before = ops.sum();
+        Thread.sleep(seconds * 1000L);
+        System.out.printf("%-26s %7d %12.0f%n", name, seconds, (ops.sum() - before) / (double) seconds);
+    }
+
+    private static void report(String name, LongAdder ops, long before, long start, long moved,
+                               ShardedShortener cluster) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long stored = 0;
+        for (String shard : cluster.ring().nodes()) {
+            stored += cluster.shard(shard).getStore().size();
+        }
+        System.out.printf("%-26s %7.2f %12.0f %15d %8.1f%n", name, seconds, (ops.sum() - before) / seconds, moved,
+                100.0 * moved / stored);
+    }
+}
@@ -0,0 +1,86 @@
+package UrlShortener.Benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import UrlShortener.Codec.Base62;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+import UrlShortener.Store.CompressedUrlStore;
+import UrlShortener.Store.InMemoryUrlStore;
+import UrlShortener.Store.UrlStore;
+
+// Retained heap per mapping of String-based layouts vs. CompressedUrlStore on a UrlCorpus,
+// and the price of decompressing on get. Every layout gets its own copies of the URL strings,
+// so the corpus array kept for the run is not counted against them.
+// Usage: CompressionBenchmark [urls]
+public class CompressionBenchmark {
+    private static final int LOOKUPS = 2_000_000;
+    private static Object retained;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        String[] urls = UrlCorpus.generate(count, 42);
+        long chars = 0;
+        for (String url : urls) {
+            chars += url.length();
+        }
+        System.out.printf("urls=%d, %.1f characters on average%n", count, (double) chars / count);
+        System.out.println("layout                 MB   bytes/mapping   get");
+
+        report("two-map (original)", count, () -> {
+            Map<String, String> urlMap = new HashMap<>();
+            Map<String, String> reverseMap = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String shortKey = Base62.encode(i + 1);
+                String longUrl = copy(urls[i]);
+                urlMap.put(shortKey, longUrl);
+                reverseMap.put(longUrl, shortKey);
+            }
+            return new Object[] {urlMap, reverseMap};
+        }, null);
+        report("InMemoryUrlStore", count, () -> load(new InMemoryUrlStore(), urls), null);
+        report("ChunkedArrayUrlStore", count, () -> load(new ChunkedArrayUrlStore(count), urls), ChunkedArrayUrlStore.class);
+        report("CompressedUrlStore", count, () -> load(new CompressedUrlStore(count), urls), CompressedUrlStore.class);
+
+        CompressedUrlStore compressed = load(new CompressedUrlStore(count), urls);
+        System.out.printf("dictionary: %d prefixes, %d characters%n",
+                compressed.getCompressor().dictionarySize(), compressed.getCompressor().dictionaryChars());
+    }
+
+    private static <S extends UrlStore> S load(S store, String[] urls) {
+        for (int i = 0; i < urls.length; i++) {
+            store.put(i + 1, copy(urls[i]));
+        }
+        return store;
+    }
+
+    // new String(String) would share the source's byte array
+    private static String copy(String url) {
+        return new String(url.toCharArray());
+    }
+
+    private static void report(String layout, int urls, Supplier<Object> build, Class<? extends UrlStore> timed) {
+        long before = ReverseIndexMemoryBenchmark.usedHeap();
+        retained = build.get();
+        long after = ReverseIndexMemoryBenchmark.usedHeap();
+        long bytes = after - before;
+        String get = "";
+        if (timed != null) {
+            UrlStore store = timed.cast(retained);
+            Random random = new Random(7);
+            long length = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                length += store.get(1 + random.nextInt(urls)).length();
+            }
+            get = String.format("%5.0f ns", (System.nanoTime() - start) / (double) LOOKUPS);
+            if (length == 0) {
+                throw new IllegalStateException("empty URLs");
+            }
+        }
+        retained = null;
+        System.out.printf("%-20s %6d %12.1f   %s%n", layout, bytes >> 20, (double) bytes / urls, get);
+    }
+}
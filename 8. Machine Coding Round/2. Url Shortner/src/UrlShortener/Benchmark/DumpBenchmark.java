@@ -0,0 +1,213 @@
+package UrlShortener.Benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Persistence.MappingDump;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+import UrlShortener.Store.InMemoryUrlStore;
+import UrlShortener.Store.MappingConsumer;
+import UrlShortener.Store.UrlStore;
+
+// MappingDump throughput and heap use: exports a store of realistic URLs (UrlCorpus) in both
+// formats, restores each into a store that only counts and into an InMemoryUrlStore (default size
+// vs. pre-sized from the dump's size hint), and compares MB/s with writing + fsyncing and with
+// reading the dump file as plain bytes. A second
+// pass checks the heap at a few points during export and restore: it should stay flat, whatever
+// the number of links.
+// Usage: DumpBenchmark [links] [directory]
+public class DumpBenchmark {
+    private static final int HEAP_SAMPLES = 4;
+
+    public static void main(String[] args) throws IOException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("dump-bench");
+
+        ChunkedArrayUrlStore source = new ChunkedArrayUrlStore();
+        String[] urls = UrlCorpus.generate(links, 42);
+        for (int i = 0; i < links; i++) {
+            source.put(i + 1, urls[i]);
+        }
+        urls = null;
+        System.out.printf("links=%d%n", links);
+        System.out.printf("%-32s %10s %10s %12s%n", "operation", "ms", "MB/s", "links/s");
+
+        for (MappingDump.Format format : MappingDump.Format.values()) {
+            Path file = directory.resolve("links." + format.name().toLowerCase());
+            for (int round = 0; round < 2; round++) { // first round warms up
+                long start = System.nanoTime();
+                MappingDump.export(source, file, format);
+                report(round, "export " + format, start, Files.size(file), links);
+                start = System.nanoTime();
+                copy(file, directory.resolve("copy"));
+                report(round, "  copy + fsync (reference)", start, Files.size(file), links);
+                start = System.nanoTime();
+                read(file);
+                report(round, "  read (reference)", start, Files.size(file), links);
+
+                CountingStore counting = new CountingStore(0);
+                start = System.nanoTime();
+                MappingDump.restore(file, counting);
+                report(round, "restore " + format + " (count only)", start, Files.size(file), links);
+                check(counting.count, links);
+
+                ReverseIndexMemoryBenchmark.usedHeap(); // collect the previous store outside the timing
+                start = System.nanoTime();
+                UrlStore store = new InMemoryUrlStore();
+                MappingDump.restore(file, store);
+                report(round, "restore " + format + " InMemory", start, Files.size(file), links);
+                check(store.size(), links);
+                store = null;
+
+                long hint = MappingDump.sizeHint(file);
+                ReverseIndexMemoryBenchmark.usedHeap();
+                start = System.nanoTime();
+                store = new InMemoryUrlStore((int) (hint >= 0 ? hint : links));
+                MappingDump.restore(file, store);
+                report(round, "restore " + format + " InMemory sized", start, Files.size(file), links);
+                check(store.size(), links);
+            }
+        }
+        Files.deleteIfExists(directory.resolve("copy"));
+
+        // Heap pass: used heap (after GC) above the source store, sampled while the dump runs
+        System.out.printf("%nheap above baseline during (KB), %d samples%n", HEAP_SAMPLES);
+        long baseline = ReverseIndexMemoryBenchmark.usedHeap();
+        Path file = directory.resolve("links.binary");
+        long[] peak = {0};
+        UrlStore sampled = new SamplingStore(source, links / HEAP_SAMPLES, baseline, peak);
+        MappingDump.export(sampled, file, MappingDump.Format.BINARY);
+        System.out.printf("  export  %8d%n", peak[0] >> 10);
+        peak[0] = 0;
+        MappingDump.restore(file, new CountingStore(links / HEAP_SAMPLES) {
+            @Override
+            void sample() {
+                peak[0] = Math.max(peak[0], ReverseIndexMemoryBenchmark.usedHeap() - baseline);
+            }
+        });
+        System.out.printf("  restore %8d%n", peak[0] >> 10);
+    }
+
+    // The disk work of an export: the same bytes written and fsynced
+    private static void copy(Path from, Path to) throws IOException {
+        try (InputStream in = Files.newInputStream(from); FileOutputStream out = new FileOutputStream(to.toFile())) {
+            in.transferTo(out);
+            out.getFD().sync();
+        }
+    }
+
+    private static long read(Path file) throws IOException {
+        byte[] buffer = new byte[1 << 20];
+        long sum = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                sum += buffer[read - 1];
+            }
+        }
+        return sum;
+    }
+
+    private static void report(int round, String name, long start, long bytes, int links) {
+        if (round == 0) {
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-32s %10.0f %10.0f %12.0f%n", name, seconds * 1e3, bytes / seconds / (1 << 20),
+                links / seconds);
+    }
+
+    private static void check(long actual, long expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("Restored " + actual + " of " + expected + " mappings");
+        }
+    }
+
+    // Accepts putAll batches and only counts them; calls sample() every sampleEvery mappings (0: never)
+    private static class CountingStore implements UrlStore {
+        private final long sampleEvery;
+        long count;
+
+        CountingStore(int sampleEvery) {
+            this.sampleEvery = sampleEvery > 0 ? sampleEvery : Long.MAX_VALUE;
+        }
+
+        void sample() {
+        }
+
+        @Override
+        public void putAll(long[] ids, List<String> longUrls) {
+            for (int i = 0; i < longUrls.size(); i++) {
+                if (++count % sampleEvery == 0) {
+                    sample();
+                }
+            }
+        }
+
+        @Override
+        public void put(long id, String longUrl) {
+            count++;
+        }
+
+        @Override
+        public String get(long id) {
+            return null;
+        }
+
+        @Override
+        public long findId(String longUrl) {
+            return -1;
+        }
+
+        @Override
+        public long getOrAssign(String longUrl, LongSupplier newId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void forEach(MappingConsumer action) {
+        }
+
+        @Override
+        public long size() {
+            return count;
+        }
+    }
+
+    // Forwards forEach to source, measuring the heap every sampleEvery mappings
+    private static final class SamplingStore extends CountingStore {
+        private final UrlStore source;
+        private final int sampleEvery;
+        private final long baseline;
+        private final long[] peak;
+
+        SamplingStore(UrlStore source, int sampleEvery, long baseline, long[] peak) {
+            super(0);
+            this.source = source;
+            this.sampleEvery = sampleEvery;
+            this.baseline = baseline;
+            this.peak = peak;
+        }
+
+        @Override
+        public void forEach(MappingConsumer action) {
+            long[] seen = {0};
+            source.forEach((id, longUrl) -> {
+                action.accept(id, longUrl);
+                if (++seen[0] % sampleEvery == 0) {
+                    peak[0] = Math.max(peak[0], ReverseIndexMemoryBenchmark.usedHeap() - baseline);
+                }
+            });
+        }
+
+        @Override
+        public long size() {
+            return source.size();
+        }
+    }
+}
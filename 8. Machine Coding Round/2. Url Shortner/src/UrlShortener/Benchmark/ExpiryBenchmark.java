@@ -0,0 +1,65 @@
+package UrlShortener.Benchmark;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+
+// Cost of links with a TTL: shortenUrl with and without a TTL, then how fast the timing wheel
+// removes them once their deadlines pass and how much heap comes back. Deadlines are spread
+// over ttlWindow; a simulated clock jumps past all of them at once.
+// Usage: ExpiryBenchmark [links] [ttlWindowMinutes]
+public class ExpiryBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int windowMinutes = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ChunkedArrayUrlStore store = new ChunkedArrayUrlStore(links);
+        URLShortenerService service = new URLShortenerService.Builder()
+                .store(store)
+                .cacheCapacity(links / 10)
+                .expiryTick(Duration.ofMillis(10))
+                .clock(now::get)
+                .build();
+        String[] urls = new String[links];
+        for (int i = 0; i < links; i++) {
+            urls[i] = ReverseIndexMemoryBenchmark.url(i);
+        }
+        long baseline = ReverseIndexMemoryBenchmark.usedHeap();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < links / 2; i++) {
+            service.shortenUrl(urls[i]);
+        }
+        double permanentNs = (System.nanoTime() - start) / (double) (links / 2);
+
+        Random random = new Random(42);
+        long windowMillis = windowMinutes * 60_000L;
+        start = System.nanoTime();
+        for (int i = links / 2; i < links; i++) {
+            service.shortenUrl(urls[i], Duration.ofMillis(1 + (long) (random.nextDouble() * windowMillis)));
+        }
+        double ttlNs = (System.nanoTime() - start) / (double) (links - links / 2);
+        long loaded = ReverseIndexMemoryBenchmark.usedHeap();
+
+        System.out.printf("links=%d (half with a TTL over %d min)%n", links, windowMinutes);
+        System.out.printf("shortenUrl           %8.0f ns%n", permanentNs);
+        System.out.printf("shortenUrl with TTL  %8.0f ns%n", ttlNs);
+
+        now.addAndGet(windowMillis + 1);
+        start = System.nanoTime();
+        while (store.size() > links / 2) {
+            Thread.sleep(1);
+        }
+        double expireMs = (System.nanoTime() - start) / 1e6;
+        long expired = ReverseIndexMemoryBenchmark.usedHeap();
+        System.out.printf("expired %d links in %.0f ms (%.0f ns each, incl. catching up %d ticks)%n",
+                links - links / 2, expireMs, expireMs * 1e6 / (links - links / 2), windowMillis / 10);
+        System.out.printf("heap above baseline: %d MB loaded, %d MB after expiry%n",
+                (loaded - baseline) >> 20, (expired - baseline) >> 20);
+        System.out.println("expired key resolves to: " + service.getLongUrl(URLShortenerService.toShortUrl(links)));
+    }
+}
@@ -0,0 +1,108 @@
+package UrlShortener.Benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import UrlShortener.Store.ChunkedArrayUrlStore;
+import UrlShortener.Store.FrozenUrlStore;
+import UrlShortener.Store.InMemoryUrlStore;
+import UrlShortener.Store.MappedUrlStore;
+import UrlShortener.Store.UrlStore;
+
+// Read-replica startup and lookups: compiling a store into a FrozenUrlStore file, then booting a
+// replica by rebuilding the mutable heap stores from it (what a replica does with a snapshot) vs.
+// reopening a MappedUrlStore vs. opening the frozen index in place. Reports boot time, retained
+// heap, and store.get latency for hits (and misses on the frozen index) over a UrlCorpus of
+// realistic URLs. The mapped stores decode every URL from UTF-8; the heap stores return theirs.
+// Usage: FrozenIndexBenchmark [links] [directory]
+public class FrozenIndexBenchmark {
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("frozen-bench");
+        Path file = directory.resolve("links.frozen");
+
+        ChunkedArrayUrlStore source = new ChunkedArrayUrlStore();
+        String[] urls = UrlCorpus.generate(links, 42);
+        for (int i = 0; i < links; i++) {
+            source.put(i + 1, urls[i]);
+        }
+        long start = System.nanoTime();
+        FrozenUrlStore.write(source, file);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        source = null;
+        urls = null;
+
+        long baseline = ReverseIndexMemoryBenchmark.usedHeap();
+        start = System.nanoTime();
+        FrozenUrlStore frozen = FrozenUrlStore.open(file);
+        double openMs = (System.nanoTime() - start) / 1e6;
+        long frozenHeap = Math.max(0, ReverseIndexMemoryBenchmark.usedHeap() - baseline);
+        System.out.printf("links=%d build=%.0f ms file=%d MB (%.1f B/link) hash=%.2f bits/link%n", links, buildMs,
+                Files.size(file) >> 20, Files.size(file) / (double) links, frozen.hashBitsPerKey());
+
+        System.out.printf("%-14s %10s %12s %12s%n", "store", "boot ms", "heap B/link", "get ns");
+        report("InMemory", boot(new InMemoryUrlStore(links), frozen), links);
+        report("ChunkedArray", boot(new ChunkedArrayUrlStore(), frozen), links);
+        Path mappedDirectory = directory.resolve("mapped");
+        try (MappedUrlStore mapped = MappedUrlStore.open(mappedDirectory, links)) {
+            frozen.forEach(mapped::put);
+        }
+        baseline = ReverseIndexMemoryBenchmark.usedHeap();
+        start = System.nanoTime();
+        try (MappedUrlStore mapped = MappedUrlStore.open(mappedDirectory, links)) {
+            report("Mapped", new Booted(mapped, (System.nanoTime() - start) / 1e6,
+                    Math.max(0, ReverseIndexMemoryBenchmark.usedHeap() - baseline)), links);
+        }
+        System.out.printf("%-14s %10.1f %12.1f %12.0f%n", "Frozen", openMs, frozenHeap / (double) links,
+                lookups(frozen, links, 0));
+        System.out.printf("%-14s %10s %12s %12.0f%n", "Frozen (miss)", "", "", lookups(frozen, links, links));
+        frozen.close();
+    }
+
+    private static Booted boot(UrlStore store, FrozenUrlStore from) {
+        long baseline = ReverseIndexMemoryBenchmark.usedHeap();
+        long start = System.nanoTime();
+        from.forEach(store::put);
+        double bootMs = (System.nanoTime() - start) / 1e6;
+        return new Booted(store, bootMs, ReverseIndexMemoryBenchmark.usedHeap() - baseline);
+    }
+
+    private static void report(String name, Booted booted, int links) {
+        System.out.printf("%-14s %10.1f %12.1f %12.0f%n", name, booted.bootMs, booted.heapBytes / (double) links,
+                lookups(booted.store, links, 0));
+    }
+
+    // Random ids in [1 + offset, links + offset]: hits for offset 0, misses for offset >= links
+    private static double lookups(UrlStore store, int links, int offset) {
+        Random random = new Random(7);
+        long found = 0;
+        for (int i = 0; i < LOOKUPS / 10; i++) { // warm-up
+            found += store.get(1 + offset + random.nextInt(links)) != null ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            found += store.get(1 + offset + random.nextInt(links)) != null ? 1 : 0;
+        }
+        double ns = (System.nanoTime() - start) / (double) LOOKUPS;
+        if (found != (offset == 0 ? LOOKUPS + LOOKUPS / 10 : 0)) {
+            throw new IllegalStateException("Wrong lookup results: " + found);
+        }
+        return ns;
+    }
+
+    private static final class Booted {
+        final UrlStore store;
+        final double bootMs;
+        final long heapBytes;
+
+        Booted(UrlStore store, double bootMs, long heapBytes) {
+            this.store = store;
+            this.bootMs = bootMs;
+            this.heapBytes = heapBytes;
+        }
+    }
+}
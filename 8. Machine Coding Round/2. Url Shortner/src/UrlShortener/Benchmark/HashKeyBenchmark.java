@@ -0,0 +1,130 @@
+package UrlShortener.Benchmark;
+
+import java.util.Arrays;
+
+import UrlShortener.Codec.Fingerprint;
+import UrlShortener.Id.HashKeyAllocator;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.InMemoryUrlStore;
+
+// Hash-derived keys vs. the counter. First shortenUrl / getLongUrl throughput of a service in
+// each mode over serviceUrls new URLs. Then the collision rate of hash keys at `urls` URLs (100M by
+// default, more than a heap of stored links allows here): the taken ids sit in a bare open-addressing
+// set of longs, and for each key length the run reports how many URLs found their first probe
+// taken, the longest probe sequence, the expected count (urls^2 / 2 / key space) and claims per second.
+// Usage: HashKeyBenchmark [urls] [serviceUrls] [keyLengths...]   (-Xmx4g for 100M URLs)
+public class HashKeyBenchmark {
+    private static final long SECRET = 0x5eed5eed5eedL;
+    private static final int MAX_PROBES = 32;
+
+    public static void main(String[] args) {
+        int urls = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+        int serviceUrls = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int[] lengths = args.length > 2
+                ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] {5, 6, 7, 8};
+
+        System.out.printf("service, %d URLs%n", serviceUrls);
+        System.out.printf("%-10s %14s %14s %12s%n", "keys", "shorten/sec", "resolve/sec", "key length");
+        for (int round = 0; round < 2; round++) { // first round warms up
+            service("counter", new URLShortenerService.Builder(), serviceUrls, round == 1);
+            service("hash(7)", new URLShortenerService.Builder()
+                    .hashKeys(new HashKeyAllocator(7, SECRET, MAX_PROBES)), serviceUrls, round == 1);
+        }
+
+        System.out.printf("%ncollisions, %d URLs%n", urls);
+        System.out.printf("%-10s %16s %12s %12s %10s %14s%n", "key length", "key space", "collided",
+                "expected", "max probe", "claims/sec");
+        LongSet taken = new LongSet(urls);
+        for (int length : lengths) {
+            collisions(new HashKeyAllocator(length, SECRET, MAX_PROBES), urls, taken);
+        }
+    }
+
+    private static void service(String name, URLShortenerService.Builder builder, int urls, boolean print) {
+        URLShortenerService service = builder.store(new InMemoryUrlStore()).cacheCapacity(10_000).build();
+        String[] shortUrls = new String[urls];
+        long start = System.nanoTime();
+        for (int i = 0; i < urls; i++) {
+            shortUrls[i] = service.shortenUrl("https://www.example.com/article/" + i);
+        }
+        double shorten = urls / ((System.nanoTime() - start) / 1e9);
+        start = System.nanoTime();
+        for (int i = 0; i < urls; i++) {
+            if (service.getLongUrl(shortUrls[i]).equals(URLShortenerService.NOT_FOUND)) {
+                throw new IllegalStateException("Lost " + shortUrls[i]);
+            }
+        }
+        double resolve = urls / ((System.nanoTime() - start) / 1e9);
+        if (print) {
+            String last = shortUrls[urls - 1];
+            System.out.printf("%-10s %14.0f %14.0f %12d%n", name, shorten, resolve,
+                    last.length() - URLShortenerService.BASE_URL.length());
+        }
+    }
+
+    private static void collisions(HashKeyAllocator keys, int urls, LongSet taken) {
+        taken.clear();
+        long collided = 0;
+        long maxProbe = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < urls; i++) {
+            String longUrl = "https://www.example.com/article/" + i;
+            long before = keys.collisions();
+            long id;
+            try {
+                id = keys.claim(longUrl, taken::contains);
+            } catch (IllegalStateException e) {
+                System.out.printf("%-10d %16d  key space full after %d URLs%n", keys.length(), keys.keySpace(), i);
+                return;
+            }
+            taken.add(id);
+            keys.release(id);
+            long probes = keys.collisions() - before;
+            collided += probes > 0 ? 1 : 0;
+            maxProbe = Math.max(maxProbe, probes);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10d %16d %12d %12.0f %10d %14.0f%n", keys.length(), keys.keySpace(), collided,
+                (double) urls * urls / 2 / keys.keySpace(), maxProbe, urls / seconds);
+    }
+
+    // Open-addressing set of non-negative longs at most half full; -1 marks an empty slot
+    private static final class LongSet {
+        private final long[] slots;
+        private final int mask;
+
+        LongSet(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+            this.slots = new long[size];
+            this.mask = size - 1;
+        }
+
+        void clear() {
+            Arrays.fill(slots, -1);
+        }
+
+        boolean contains(long value) {
+            for (int i = slot(value); ; i = (i + 1) & mask) {
+                if (slots[i] == value) {
+                    return true;
+                }
+                if (slots[i] == -1) {
+                    return false;
+                }
+            }
+        }
+
+        void add(long value) {
+            int i = slot(value);
+            while (slots[i] != -1 && slots[i] != value) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+        }
+
+        private int slot(long value) {
+            return (int) Fingerprint.mix(value) & mask;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package UrlShortener.Benchmark;
+
+import java.util.function.IntFunction;
+
+import UrlShortener.Cache.Cache;
+import UrlShortener.Cache.ClockCache;
+import UrlShortener.Cache.LruCache;
+import UrlShortener.Cache.WTinyLfuCache;
+
+// Hit ratio of the cache policies on a Zipf redirect workload, with and without a crawler
+// that periodically sweeps cold keys.
+// Usage: HitRatioBenchmark [keySpace] [requests] [zipfExponent]
+public class HitRatioBenchmark {
+    public static void main(String[] args) {
+        long keySpace = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        double exponent = args.length > 2 ? Double.parseDouble(args[2]) : 0.9;
+
+        System.out.printf("keySpace=%d requests=%d zipf=%.2f%n", keySpace, requests, exponent);
+        System.out.println("capacity  scan     LRU   CLOCK  W-TinyLFU");
+        for (int capacity : new int[] {1_000, 10_000, 100_000}) {
+            for (boolean scan : new boolean[] {false, true}) {
+                System.out.printf("%8d  %-5s %6.2f%% %6.2f%% %9.2f%%%n", capacity, scan,
+                        run(LruCache::new, capacity, keySpace, requests, exponent, scan),
+                        run(ClockCache::new, capacity, keySpace, requests, exponent, scan),
+                        run(WTinyLfuCache::new, capacity, keySpace, requests, exponent, scan));
+            }
+        }
+    }
+
+    private static double run(IntFunction<Cache<Long, String>> factory, int capacity, long keySpace,
+                              int requests, double exponent, boolean scan) {
+        Cache<Long, String> cache = factory.apply(capacity);
+        ZipfGenerator zipf = new ZipfGenerator(keySpace, exponent, 42);
+        long crawler = keySpace + 1;
+        for (int i = 0; i < requests; i++) {
+            // One request in five comes from a crawler walking keys nobody else asks for
+            long key = scan && i % 5 == 0 ? crawler++ : zipf.next();
+            if (cache.get(key) == null) {
+                cache.put(key, "https://www.example.com/" + key);
+            }
+        }
+        return cache.stats().hitRate() * 100;
+    }
+}
@@ -0,0 +1,140 @@
+package UrlShortener.Benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import UrlShortener.Codec.Base62;
+import UrlShortener.Metrics.LatencyHistogram;
+import UrlShortener.Server.RedirectServer;
+import UrlShortener.Service.URLShortenerService;
+
+// Closed-loop keep-alive load generator for GET /{key}. Each connection sends a request, waits
+// for the full response, records the latency and repeats. Keys follow a Zipf(0.99) distribution.
+// Without a target it starts an in-process RedirectServer with preloaded links.
+// Usage: HttpLoadGenerator [connections] [seconds] [preloadedLinks] [host:port]
+public class HttpLoadGenerator {
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int links = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        RedirectServer server = null;
+        InetSocketAddress target;
+        if (args.length > 3) {
+            String[] hostPort = args[3].split(":");
+            target = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            URLShortenerService service = new URLShortenerService.Builder().cacheCapacity(links / 10).build();
+            for (int i = 0; i < links; i++) {
+                service.shortenUrl("https://www.example.com/landing/" + i);
+            }
+            server = new RedirectServer(service, 0);
+            target = new InetSocketAddress("127.0.0.1", server.start());
+        }
+
+        run(target, connections, Math.min(2, seconds), links, null); // warm-up
+        LatencyHistogram latencies = new LatencyHistogram();
+        long requests = run(target, connections, seconds, links, latencies);
+        System.out.printf("connections=%d seconds=%d links=%d%n", connections, seconds, links);
+        System.out.printf("requests/sec=%.0f%n", requests / (double) seconds);
+        System.out.printf("latency us: p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                latencies.percentile(0.50) / 1e3, latencies.percentile(0.99) / 1e3,
+                latencies.percentile(0.999) / 1e3, latencies.max() / 1e3);
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static long run(InetSocketAddress target, int connections, int seconds, int links,
+                            LatencyHistogram latencies) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        CountDownLatch done = new CountDownLatch(connections);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int c = 0; c < connections; c++) {
+            int seed = c;
+            Thread worker = new Thread(() -> {
+                try (SocketChannel channel = SocketChannel.open(target)) {
+                    channel.socket().setTcpNoDelay(true);
+                    ZipfGenerator keys = new ZipfGenerator(links, 0.99, seed);
+                    ByteBuffer request = ByteBuffer.allocate(256);
+                    ByteBuffer response = ByteBuffer.allocate(16 * 1024);
+                    byte[] prefix = "GET /".getBytes(StandardCharsets.US_ASCII);
+                    byte[] suffix = " HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+                    long count = 0;
+                    while (System.nanoTime() < deadline) {
+                        request.clear();
+                        request.put(prefix);
+                        int keyLength = Base62.encode(keys.next(), request.array(), request.position());
+                        request.position(request.position() + keyLength).put(suffix).flip();
+                        long start = System.nanoTime();
+                        while (request.hasRemaining()) {
+                            channel.write(request);
+                        }
+                        readResponse(channel, response);
+                        if (latencies != null) {
+                            latencies.record(System.nanoTime() - start);
+                        }
+                        count++;
+                    }
+                    completed.add(count);
+                } catch (IOException e) {
+                    System.err.println("Connection failed: " + e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        return completed.sum();
+    }
+
+    // Reads one response (headers + Content-Length body) and keeps any bytes after it
+    private static void readResponse(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (true) {
+            byte[] bytes = buffer.array();
+            int end = buffer.position();
+            int headerEnd = Responses.indexOfHeaderEnd(bytes, end);
+            if (headerEnd >= 0) {
+                int length = Responses.contentLength(bytes, headerEnd);
+                int total = headerEnd + 4 + length;
+                if (end >= total) {
+                    System.arraycopy(bytes, total, bytes, 0, end - total);
+                    buffer.position(end - total);
+                    return;
+                }
+            }
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+        }
+    }
+
+    // Minimal response parsing helpers
+    private static final class Responses {
+        static int indexOfHeaderEnd(byte[] bytes, int end) {
+            for (int i = 0; i + 3 < end; i++) {
+                if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        static int contentLength(byte[] bytes, int headerEnd) {
+            String headers = new String(bytes, 0, headerEnd, StandardCharsets.US_ASCII).toLowerCase();
+            int index = headers.indexOf("content-length:");
+            if (index < 0) {
+                return 0;
+            }
+            int lineEnd = headers.indexOf('\r', index);
+            return Integer.parseInt(headers.substring(index + 15, lineEnd < 0 ? headers.length() : lineEnd).trim());
+        }
+    }
+}
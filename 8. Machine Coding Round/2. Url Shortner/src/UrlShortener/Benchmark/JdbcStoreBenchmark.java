@@ -0,0 +1,123 @@
+package UrlShortener.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import UrlShortener.Id.HashKeyAllocator;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.JdbcUrlStore;
+
+// JdbcUrlStore throughput: shortenUrl one link at a time vs. shortenAll batches (one IN-list
+// query + one batched insert per 500 links), a putAll import, uncached get latency, and hash-key
+// shortenUrl from more threads than the pool has connections (the key's probe reads the store).
+// Defaults to an in-memory H2 database; the driver jar must be on the classpath, e.g.
+//   java -cp out:h2-2.2.224.jar UrlShortener.Benchmark.JdbcStoreBenchmark
+// Usage: JdbcStoreBenchmark [links] [jdbcUrl] [user] [password]
+public class JdbcStoreBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+    private static final int LOOKUPS = 50_000;
+    private static final int POOL_SIZE = 4;
+    private static final int HASH_KEY_THREADS = 16;
+
+    public static void main(String[] args) throws InterruptedException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String jdbcUrl = args.length > 1 ? args[1] : "jdbc:h2:mem:links;DB_CLOSE_DELAY=-1";
+        String user = args.length > 2 ? args[2] : "sa";
+        String password = args.length > 3 ? args[3] : "";
+
+        try (JdbcUrlStore store = JdbcUrlStore.open(jdbcUrl, user, password, POOL_SIZE)) {
+            URLShortenerService service = new URLShortenerService.Builder()
+                    .store(store)
+                    .cacheCapacity(1)
+                    .firstId(store.maxId() + 1)
+                    .build();
+            System.out.printf("links=%d url=%s%n", links, jdbcUrl);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < links; i++) {
+                service.shortenUrl("https://www.example.com/single/" + i);
+            }
+            report("shortenUrl", links, start);
+
+            start = System.nanoTime();
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < links; i++) {
+                batch.add("https://www.example.com/batch/" + i);
+                if (batch.size() == BATCH_SIZE || i == links - 1) {
+                    service.shortenAll(batch);
+                    batch.clear();
+                }
+            }
+            report("shortenAll x" + BATCH_SIZE, links, start);
+
+            start = System.nanoTime();
+            long firstId = store.maxId() + 1;
+            List<String> urls = new ArrayList<>(BATCH_SIZE);
+            long[] ids = new long[BATCH_SIZE];
+            for (int i = 0; i < links; i++) {
+                ids[urls.size()] = firstId + i;
+                urls.add("https://www.example.com/import/" + i);
+                if (urls.size() == BATCH_SIZE || i == links - 1) {
+                    store.putAll(ids, urls);
+                    urls.clear();
+                }
+            }
+            report("putAll x" + BATCH_SIZE, links, start);
+
+            Random random = new Random(42);
+            long maxId = store.maxId();
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                if (service.getLongUrl(URLShortenerService.toShortUrl(1 + random.nextInt((int) maxId)))
+                        .equals(URLShortenerService.NOT_FOUND)) {
+                    throw new IllegalStateException("Lost a mapping");
+                }
+            }
+            System.out.printf("%-18s %10.1f us per lookup (store size %d)%n", "getLongUrl",
+                    (System.nanoTime() - start) / 1e3 / LOOKUPS, store.size());
+
+            hashKeys(store, links);
+        }
+    }
+
+    // Each key probe reads the store from inside getOrAssign; a store that kept its connection
+    // across newId would hang here once every connection is taken
+    private static void hashKeys(JdbcUrlStore store, int links) throws InterruptedException {
+        URLShortenerService service = new URLShortenerService.Builder()
+                .store(store)
+                .cacheCapacity(1)
+                .hashKeys(new HashKeyAllocator(7, 0x5eed5eed5eedL, 32))
+                .build();
+        int perThread = Math.max(1, links / HASH_KEY_THREADS);
+        long sizeBefore = store.size();
+        Thread[] workers = new Thread[HASH_KEY_THREADS];
+        long start = System.nanoTime();
+        for (int t = 0; t < workers.length; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    service.shortenUrl("https://www.example.com/hash/" + (i * HASH_KEY_THREADS + thread));
+                }
+            });
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.MINUTES.toMillis(5));
+            if (worker.isAlive()) {
+                throw new IllegalStateException("Hash-key shortenUrl stuck waiting for a JDBC connection");
+            }
+        }
+        report("hash keys x" + HASH_KEY_THREADS + "t", perThread * HASH_KEY_THREADS, start);
+        if (store.size() - sizeBefore != (long) perThread * HASH_KEY_THREADS) {
+            throw new IllegalStateException("Stored " + (store.size() - sizeBefore) + " hash-key links");
+        }
+    }
+
+    private static void report(String operation, int links, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-18s %10.0f links/s%n", operation, links / seconds);
+    }
+}
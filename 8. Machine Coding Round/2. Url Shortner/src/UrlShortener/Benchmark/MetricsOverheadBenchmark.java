@@ -0,0 +1,130 @@
+package UrlShortener.Benchmark;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import UrlShortener.Metrics.LatencyHistogram;
+import UrlShortener.Metrics.ShortenerMetrics;
+import UrlShortener.Service.URLShortenerService;
+
+// Cost of service metrics on the request path: ns per getLongUrl (cache hits), per shortenUrl of an
+// already shortened URL and per shortenUrl of a new one, with metrics off and on, in alternating
+// rounds so JIT and GC drift hit both sides alike. Also times the two pieces metrics add to a call,
+// a System.nanoTime() pair and one histogram record(), and prints one dump of the instrumented service.
+// Usage: MetricsOverheadBenchmark [links] [threads]
+public class MetricsOverheadBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int OPS_PER_THREAD = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        URLShortenerService plain = newService(links, false);
+        URLShortenerService instrumented = newService(links, true);
+        String[] shortUrls = new String[links];
+        for (int i = 0; i < links; i++) {
+            shortUrls[i] = plain.shortenUrl(longUrl(i));
+            instrumented.shortenUrl(longUrl(i));
+        }
+        System.out.printf("links=%d threads=%d%n", links, threads);
+
+        double[][] best = new double[2][3];
+        for (double[] side : best) {
+            Arrays.fill(side, Double.MAX_VALUE);
+        }
+        AtomicInteger fresh = new AtomicInteger(links);
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int side = 0; side < 2; side++) {
+                URLShortenerService service = side == 0 ? plain : instrumented;
+                best[side][0] = Math.min(best[side][0], run(threads, random -> {
+                    service.getLongUrl(shortUrls[random.nextInt(links)]);
+                }));
+                best[side][1] = Math.min(best[side][1], run(threads, random -> {
+                    service.shortenUrl(longUrl(random.nextInt(links)));
+                }));
+                best[side][2] = Math.min(best[side][2], run(threads, OPS_PER_THREAD / 10, random -> {
+                    service.shortenUrl(longUrl(fresh.getAndIncrement()));
+                }));
+            }
+        }
+        System.out.printf("%-22s %12s %12s %10s%n", "operation", "off ns/op", "on ns/op", "overhead");
+        String[] names = {"getLongUrl (hit)", "shortenUrl (existing)", "shortenUrl (new)"};
+        for (int op = 0; op < names.length; op++) {
+            System.out.printf("%-22s %12.1f %12.1f %9.1f%n", names[op], best[0][op], best[1][op],
+                    best[1][op] - best[0][op]);
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        System.out.printf("nanoTime pair %.1f ns, LatencyHistogram.record %.1f ns%n",
+                run(1, random -> {
+                    long start = System.nanoTime();
+                    if (System.nanoTime() - start < 0) {
+                        throw new IllegalStateException("Clock went backwards");
+                    }
+                }),
+                run(1, random -> histogram.record(random.nextInt(1_000_000))));
+
+        ShortenerMetrics metrics = instrumented.getMetrics();
+        StringBuilder dumps = new StringBuilder();
+        metrics.startDump(Duration.ofMillis(500), dumps::append);
+        run(threads, random -> instrumented.getLongUrl(shortUrls[random.nextInt(links)]));
+        Thread.sleep(600);
+        metrics.close();
+        System.out.println();
+        System.out.print(metrics.format());
+        System.out.println();
+        System.out.print(dumps);
+    }
+
+    private static URLShortenerService newService(int links, boolean metrics) {
+        return new URLShortenerService.Builder()
+                .cacheCapacity(links)
+                .metrics(metrics)
+                .build();
+    }
+
+    private static String longUrl(int i) {
+        return "https://www.example.com/article/" + i;
+    }
+
+    private static double run(int threads, Operation operation) throws InterruptedException {
+        return run(threads, OPS_PER_THREAD, operation);
+    }
+
+    // Average ns per operation, each thread doing opsPerThread of them
+    private static double run(int threads, int opsPerThread, Operation operation) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < opsPerThread; i++) {
+                    operation.run(random);
+                }
+            });
+            workers[t].start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (System.nanoTime() - begin) / (double) threads / opsPerThread;
+    }
+
+    private interface Operation {
+        void run(ThreadLocalRandom random);
+    }
+}
@@ -0,0 +1,95 @@
+package UrlShortener.Benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import UrlShortener.Metrics.LatencyHistogram;
+import UrlShortener.Persistence.FsyncPolicy;
+import UrlShortener.Persistence.PersistenceManager;
+import UrlShortener.Persistence.WriteBehindJournal;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+
+// shortenUrl throughput of a WAL-backed service for each fsync policy, and with a write-behind
+// journal in front of a per-write WAL.
+// Usage: PersistenceBenchmark [urlsPerThread] [threads] [dataDirectory]
+public class PersistenceBenchmark {
+    public static void main(String[] args) throws Exception {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Path root = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("wal-bench");
+
+        FsyncPolicy[] policies = {
+            FsyncPolicy.perWrite(),
+            FsyncPolicy.batched(64),
+            FsyncPolicy.batched(1024),
+            FsyncPolicy.interval(Duration.ofMillis(10)),
+            FsyncPolicy.interval(Duration.ofMillis(100))
+        };
+        System.out.printf("threads=%d urls=%d dir=%s%n", threads, perThread * threads, root);
+        System.out.println("policy                 ops/sec");
+        int run = 0;
+        for (FsyncPolicy policy : policies) {
+            Path directory = root.resolve("run-" + run++);
+            ChunkedArrayUrlStore store = new ChunkedArrayUrlStore();
+            try (PersistenceManager persistence = PersistenceManager.open(directory, policy, store)) {
+                URLShortenerService service = new URLShortenerService.Builder()
+                        .store(store)
+                        .journal(persistence.journal())
+                        .build();
+                System.out.printf("%-18s %11.0f%n", policy, shorten(service, threads, perThread));
+            }
+            deleteRecursively(directory);
+        }
+
+        // Write-behind in front of a per-write WAL: acknowledged from memory, one fsync per batch
+        Path directory = root.resolve("run-" + run);
+        ChunkedArrayUrlStore store = new ChunkedArrayUrlStore();
+        try (PersistenceManager persistence = PersistenceManager.open(directory, FsyncPolicy.perWrite(), store)) {
+            WriteBehindJournal journal = new WriteBehindJournal(persistence.journal());
+            URLShortenerService service = new URLShortenerService.Builder()
+                    .store(store)
+                    .journal(journal)
+                    .build();
+            System.out.printf("%-18s %11.0f%n", "writeBehind", shorten(service, threads, perThread));
+            journal.close();
+            LatencyHistogram flush = journal.flushLatency();
+            System.out.printf("  %d batches (%.0f records each), flush p50=%.0fus p99=%.0fus, persist lag p99=%.1fms,"
+                            + " %d backpressure stalls%n",
+                    flush.count(), (double) journal.writtenRecords() / flush.count(),
+                    flush.percentile(0.50) / 1e3, flush.percentile(0.99) / 1e3,
+                    journal.persistLag().percentile(0.99) / 1e6, journal.backpressureStalls());
+        }
+        deleteRecursively(directory);
+    }
+
+    private static double shorten(URLShortenerService service, int threads, int perThread) throws InterruptedException {
+        AtomicLong sequence = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    service.shortenUrl("https://www.example.com/articles/" + sequence.incrementAndGet());
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (double) threads * perThread * 1e9 / (System.nanoTime() - start);
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (var files = Files.walk(directory)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
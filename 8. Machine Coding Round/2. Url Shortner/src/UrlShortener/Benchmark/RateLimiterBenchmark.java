@@ -0,0 +1,116 @@
+package UrlShortener.Benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import UrlShortener.RateLimit.ClientRateLimiter;
+
+// ClientRateLimiter overhead at high client cardinality. For each client count the limiter is sized
+// for that many clients, every client is seen once, then threads call tryAcquire for random clients
+// under a limit they never reach (the allowed path a request pays for) and the run reports ns per
+// call next to the same loop without the limiter, heap per client, and what a churn of twice as many
+// clients as the limiter holds does to latency and evictions. A last pass drives one client on a
+// manual clock and checks the allowed count against burst + rate * time. The overhead is one clock
+// read plus, once the table outgrows the CPU caches, a cache miss or two.
+// Usage: RateLimiterBenchmark [threads] [clientCounts...]   (-Xmx2g for 10M clients)
+public class RateLimiterBenchmark {
+    private static final int OPS_PER_THREAD = 5_000_000;
+    private static final double RATE = 1_000_000; // per client, never reached here
+    private static final int BURST = 10_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long[] counts = {1_000, 100_000, 1_000_000, 10_000_000};
+        if (args.length > 1) {
+            counts = new long[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                counts[i - 1] = Long.parseLong(args[i]);
+            }
+        }
+
+        System.out.printf("threads=%d%n", threads);
+        System.out.printf("%12s %12s %12s %12s %12s %14s %12s%n", "clients", "loop ns/op", "limiter ns", "overhead",
+                "bytes/client", "churn ns/op", "evictions");
+        for (long count : counts) {
+            int clients = (int) count;
+            long before = ReverseIndexMemoryBenchmark.usedHeap();
+            ClientRateLimiter limiter = new ClientRateLimiter(RATE, BURST, clients);
+            for (int client = 0; client < clients; client++) {
+                limiter.tryAcquire(client);
+            }
+            double bytes = (double) (ReverseIndexMemoryBenchmark.usedHeap() - before) / clients;
+
+            double loop = Double.MAX_VALUE;
+            double limited = Double.MAX_VALUE;
+            AtomicLong sink = new AtomicLong();
+            for (int round = 0; round < 3; round++) { // best of 3, the first one warms up
+                loop = Math.min(loop, run(threads, random -> sink.addAndGet(random.nextInt(clients) & 1)));
+                limited = Math.min(limited, run(threads, random -> {
+                    if (!limiter.tryAcquire(random.nextInt(clients))) {
+                        throw new IllegalStateException("Rejected below the limit");
+                    }
+                }));
+            }
+            double churn = run(threads, random -> limiter.tryAcquire(random.nextInt(2 * clients)));
+            System.out.printf("%12d %12.1f %12.1f %12.1f %12.1f %14.1f %12d%n", clients, loop, limited,
+                    limited - loop, bytes, churn, limiter.evictions());
+        }
+
+        AtomicLong sink = new AtomicLong();
+        System.out.printf("clock read (currentTimeMillis) %.1f ns%n",
+                run(1, random -> sink.addAndGet(System.currentTimeMillis() & 1)));
+        accuracy();
+    }
+
+    // One client polling every millisecond at a few rates for 60 simulated seconds
+    private static void accuracy() {
+        System.out.printf("%n%10s %8s %12s %12s%n", "rate/s", "burst", "allowed", "expected");
+        long seconds = 60;
+        for (double rate : new double[] {0.5, 10, 333.3}) {
+            long[] now = {0};
+            int burst = 20;
+            ClientRateLimiter limiter = new ClientRateLimiter(rate, burst, 1, () -> now[0]);
+            long allowed = 0;
+            for (; now[0] < seconds * 1000; now[0]++) {
+                for (int i = 0; i < 2 + rate / 1000; i++) { // always asking for more than the rate
+                    allowed += limiter.tryAcquire(42) ? 1 : 0;
+                }
+            }
+            System.out.printf("%10.1f %8d %12d %12.0f%n", rate, burst, allowed, burst + rate * seconds);
+        }
+    }
+
+    // Average ns per operation, each thread doing OPS_PER_THREAD of them
+    private static double run(int threads, Operation operation) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    operation.run(random);
+                }
+            });
+            workers[t].start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (System.nanoTime() - begin) / (double) threads / OPS_PER_THREAD;
+    }
+
+    private interface Operation {
+        void run(ThreadLocalRandom random);
+    }
+}
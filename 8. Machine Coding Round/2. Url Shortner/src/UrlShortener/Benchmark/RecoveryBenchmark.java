@@ -0,0 +1,50 @@
+package UrlShortener.Benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import UrlShortener.Persistence.FsyncPolicy;
+import UrlShortener.Persistence.MappingJournal;
+import UrlShortener.Persistence.PersistenceManager;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+
+// Time to rebuild a store from the newest snapshot plus a WAL tail.
+// 50M mappings need a large heap, e.g. java -Xmx24g ... RecoveryBenchmark 50000000
+// Usage: RecoveryBenchmark [mappings] [walTailPercent] [dataDirectory]
+public class RecoveryBenchmark {
+    public static void main(String[] args) throws Exception {
+        long mappings = args.length > 0 ? Long.parseLong(args[0]) : 50_000_000L;
+        int tailPercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("recovery-bench");
+        long tail = mappings * tailPercent / 100;
+
+        long start = System.nanoTime();
+        ChunkedArrayUrlStore store = new ChunkedArrayUrlStore();
+        try (PersistenceManager persistence = PersistenceManager.open(directory, FsyncPolicy.batched(4096), store)) {
+            MappingJournal journal = persistence.journal();
+            for (long id = 1; id <= mappings; id++) {
+                String longUrl = "https://www.example.com/products/category-" + (id % 1000) + "/item-" + id;
+                store.put(id, longUrl);
+                if (id == mappings - tail) {
+                    persistence.snapshot(store);
+                } else if (id > mappings - tail) {
+                    journal.append(id, longUrl);
+                }
+            }
+            journal.sync();
+        }
+        System.out.printf("wrote %d mappings (snapshot + %d in WAL) in %.1fs%n",
+                mappings, tail, (System.nanoTime() - start) / 1e9);
+        store = null;
+        System.gc();
+
+        ChunkedArrayUrlStore recovered = new ChunkedArrayUrlStore();
+        start = System.nanoTime();
+        try (PersistenceManager persistence = PersistenceManager.open(directory, FsyncPolicy.perWrite(), recovered)) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("recovered %d mappings (max id %d) in %.2fs = %.0f mappings/sec%n",
+                    recovered.size(), persistence.recoveredMaxId(), seconds, recovered.size() / seconds);
+        }
+        PersistenceBenchmark.deleteRecursively(directory);
+    }
+}
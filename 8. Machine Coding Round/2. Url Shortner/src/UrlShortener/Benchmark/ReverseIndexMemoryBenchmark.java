@@ -0,0 +1,84 @@
+package UrlShortener.Benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import UrlShortener.Codec.Base62;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+import UrlShortener.Store.InMemoryUrlStore;
+
+// Retained heap per mapping for:
+//   two-map layout  - the original urlMap + reverseMap (HashMap<String, String> both ways)
+//   InMemoryUrlStore - ConcurrentHashMap<Long, String> + ConcurrentHashMap<String, Long>
+//   ChunkedArrayUrlStore - paged String[] + FingerprintIndex (two long[] per segment)
+// Every layout holds its own copy of the URL strings, so the numbers include them.
+// Run with enough heap for 10M URLs, e.g. java -Xmx8g ... ReverseIndexMemoryBenchmark 10000000
+// Usage: ReverseIndexMemoryBenchmark [urls]
+public class ReverseIndexMemoryBenchmark {
+    private static Object retained; // keeps the structure reachable until it is measured
+
+    public static void main(String[] args) {
+        int urls = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        System.out.printf("urls=%d%n", urls);
+        System.out.println("layout                 MB   bytes/mapping");
+        report("two-map (original)", urls, () -> {
+            Map<String, String> urlMap = new HashMap<>();
+            Map<String, String> reverseMap = new HashMap<>();
+            for (int i = 1; i <= urls; i++) {
+                String shortKey = Base62.encode(i);
+                String longUrl = url(i);
+                urlMap.put(shortKey, longUrl);
+                reverseMap.put(longUrl, shortKey);
+            }
+            return new Object[] {urlMap, reverseMap};
+        });
+        report("InMemoryUrlStore", urls, () -> {
+            InMemoryUrlStore store = new InMemoryUrlStore();
+            for (int i = 1; i <= urls; i++) {
+                store.put(i, url(i));
+            }
+            return store;
+        });
+        report("ChunkedArrayUrlStore", urls, () -> {
+            ChunkedArrayUrlStore store = new ChunkedArrayUrlStore();
+            for (int i = 1; i <= urls; i++) {
+                store.put(i, url(i));
+            }
+            return store;
+        });
+        report("URL strings only", urls, () -> {
+            String[] strings = new String[urls];
+            for (int i = 0; i < urls; i++) {
+                strings[i] = url(i + 1);
+            }
+            return strings;
+        });
+    }
+
+    static String url(int i) {
+        return "https://www.example.com/blog/2024/" + (i % 97) + "/post-" + i + "?utm_source=newsletter";
+    }
+
+    private static void report(String layout, int urls, Supplier<Object> build) {
+        long before = usedHeap();
+        retained = build.get();
+        long after = usedHeap();
+        retained = null;
+        long bytes = after - before;
+        System.out.printf("%-20s %6d %12.1f%n", layout, bytes >> 20, (double) bytes / urls);
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
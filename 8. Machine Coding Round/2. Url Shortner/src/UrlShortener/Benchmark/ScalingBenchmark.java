@@ -0,0 +1,76 @@
+package UrlShortener.Benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import UrlShortener.Service.URLShortenerService;
+
+// Measures shortenUrl/getLongUrl throughput from 1 thread up to the number of cores.
+// Usage: ScalingBenchmark [preloadedUrls] [secondsPerRun] [writePercent]
+public class ScalingBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int preload = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        URLShortenerService service = new URLShortenerService.Builder()
+                .cacheCapacity(preload / 10)
+                .build();
+        String[] shortUrls = new String[preload];
+        for (int i = 0; i < preload; i++) {
+            shortUrls[i] = service.shortenUrl("https://www.example.com/preloaded/" + i);
+        }
+        AtomicLong fresh = new AtomicLong();
+
+        System.out.printf("preloaded=%d writes=%d%% cores=%d%n", preload, writePercent, cores);
+        System.out.println("threads      ops/sec    speedup");
+        double baseline = 0;
+        for (int threads = 1; threads <= cores; threads = threads < cores && threads * 2 > cores ? cores : threads * 2) {
+            double opsPerSec = run(service, shortUrls, fresh, threads, seconds, writePercent);
+            if (threads == 1) {
+                baseline = opsPerSec;
+            }
+            System.out.printf("%7d %12.0f %9.2fx%n", threads, opsPerSec, opsPerSec / baseline);
+        }
+    }
+
+    private static double run(URLShortenerService service, String[] shortUrls, AtomicLong fresh,
+                              int threads, int seconds, int writePercent) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 256; i++) {
+                        if (random.nextInt(100) < writePercent) {
+                            service.shortenUrl("https://www.example.com/new/" + fresh.incrementAndGet());
+                        } else {
+                            service.getLongUrl(shortUrls[random.nextInt(shortUrls.length)]);
+                        }
+                    }
+                    done += 256;
+                }
+                ops.add(done);
+            });
+            workers[t].start();
+        }
+        deadline[0] = System.nanoTime() + seconds * 1_000_000_000L;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / (double) seconds;
+    }
+}
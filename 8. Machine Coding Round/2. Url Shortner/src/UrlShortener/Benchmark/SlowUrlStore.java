@@ -0,0 +1,75 @@
+package UrlShortener.Benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Store.MappingConsumer;
+import UrlShortener.Store.UrlStore;
+
+// Adds a fixed delay to every get, standing in for a store behind a network hop, and counts the
+// gets that reach it. Delays under a millisecond spin; longer ones sleep, so many concurrent
+// callers can wait on it at once without burning the CPU.
+class SlowUrlStore implements UrlStore {
+    private final UrlStore delegate;
+    private final long latencyNanos;
+    private final LongAdder gets = new LongAdder();
+
+    SlowUrlStore(UrlStore delegate, Duration latency) {
+        this.delegate = delegate;
+        this.latencyNanos = latency.toNanos();
+    }
+
+    @Override
+    public String get(long id) {
+        gets.increment();
+        if (latencyNanos >= 1_000_000) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            long until = System.nanoTime() + latencyNanos;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+        }
+        return delegate.get(id);
+    }
+
+    long gets() {
+        return gets.sum();
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        return delegate.findId(longUrl);
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        return delegate.getOrAssign(longUrl, newId);
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        delegate.put(id, longUrl);
+    }
+
+    @Override
+    public boolean remove(long id) {
+        return delegate.remove(id);
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+}
@@ -0,0 +1,64 @@
+package UrlShortener.Benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.InMemoryUrlStore;
+import UrlShortener.Store.TieredUrlStore;
+import UrlShortener.Store.UrlStore;
+
+// Heap-resident InMemoryUrlStore vs. TieredUrlStore (memtable + on-disk segments): shortenUrl
+// throughput, retained heap per mapping, and getLongUrl latency for recent (memtable) and old
+// (segment) keys with a one-entry cache, so every lookup reaches the store.
+// Usage: TieredStoreBenchmark [links] [memtableEntries] [dataDirectory]
+public class TieredStoreBenchmark {
+    private static final int LOOKUPS = 200_000;
+
+    public static void main(String[] args) throws IOException {
+        int links = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int memtableEntries = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("tiered-bench");
+
+        System.out.printf("links=%d memtableEntries=%d%n", links, memtableEntries);
+        System.out.printf("%-16s %12s %10s %12s %12s%n", "store", "shorten/s", "B/mapping", "recent get", "old get");
+        run("InMemory", new InMemoryUrlStore(), links);
+        try (TieredUrlStore tiered = TieredUrlStore.open(directory, memtableEntries)) {
+            run("Tiered", tiered, links);
+            System.out.printf("tiered: %d segments, %d compactions, %d MB on disk%n",
+                    tiered.segmentCount(), tiered.compactions(), tiered.diskBytes() >> 20);
+        }
+    }
+
+    private static void run(String name, UrlStore store, int links) {
+        long baseline = ReverseIndexMemoryBenchmark.usedHeap();
+        URLShortenerService service = new URLShortenerService.Builder()
+                .store(store)
+                .cacheCapacity(1)
+                .build();
+        long start = System.nanoTime();
+        for (int i = 0; i < links; i++) {
+            service.shortenUrl(ReverseIndexMemoryBenchmark.url(i));
+        }
+        double perSecond = links / ((System.nanoTime() - start) / 1e9);
+        long bytesPerMapping = (ReverseIndexMemoryBenchmark.usedHeap() - baseline) / links;
+
+        Random random = new Random(42);
+        double recentNs = lookups(service, random, links - 1000, 1000);
+        double oldNs = lookups(service, random, 0, links / 2);
+        System.out.printf("%-16s %12.0f %10d %10.0f ns %10.0f ns%n", name, perSecond, bytesPerMapping, recentNs, oldNs);
+    }
+
+    private static double lookups(URLShortenerService service, Random random, int from, int range) {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String shortUrl = URLShortenerService.toShortUrl(1 + from + random.nextInt(range));
+            if (URLShortenerService.NOT_FOUND.equals(service.getLongUrl(shortUrl))) {
+                throw new IllegalStateException("Lost mapping " + shortUrl);
+            }
+        }
+        return (System.nanoTime() - start) / (double) LOOKUPS;
+    }
+}
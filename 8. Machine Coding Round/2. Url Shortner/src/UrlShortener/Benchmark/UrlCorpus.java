@@ -0,0 +1,87 @@
+package UrlShortener.Benchmark;
+
+import java.util.Random;
+
+// Synthetic but realistic long URLs: a Zipf-popular mix of hosts, each with the path shapes
+// real links to it have (product ids, repository paths, dated article slugs, document ids,
+// campaign query strings), plus a long tail of small sites.
+public class UrlCorpus {
+    private static final String ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String[] WORDS = {"how", "to", "best", "new", "guide", "review", "2024", "update",
+            "java", "cloud", "market", "city", "open", "source", "data", "world", "price", "sale", "team", "plan"};
+    private static final String[] SECTIONS = {"world", "business", "technology", "science", "sports", "opinion"};
+    private static final String[] CAMPAIGNS = {"spring_sale", "weekly_digest", "launch", "black_friday", "onboarding"};
+
+    private final Random random;
+    private final ZipfGenerator sites;
+    private final ZipfGenerator users;
+
+    public UrlCorpus(long seed) {
+        this.random = new Random(seed);
+        this.sites = new ZipfGenerator(10_000, 1.2, seed);
+        this.users = new ZipfGenerator(50_000, 0.8, seed + 1);
+    }
+
+    public static String[] generate(int count, long seed) {
+        UrlCorpus corpus = new UrlCorpus(seed);
+        String[] urls = new String[count];
+        for (int i = 0; i < count; i++) {
+            urls[i] = corpus.next();
+        }
+        return urls;
+    }
+
+    public String next() {
+        long site = sites.next();
+        switch ((int) Math.min(site, 8)) {
+            case 1:
+                return "https://www.amazon.com/" + slug(4) + "/dp/B0" + token(8) + "?ref=" + token(6)
+                        + "&th=1";
+            case 2:
+                return "https://github.com/user" + users.next() + "/" + slug(2) + "/blob/main/src/"
+                        + slug(1) + "/" + slug(1) + ".java";
+            case 3:
+                return "https://www.youtube.com/watch?v=" + token(11) + (random.nextBoolean() ? "&t=" + random.nextInt(900) + "s" : "");
+            case 4:
+                return "https://docs.google.com/document/d/" + token(44) + "/edit?usp=sharing";
+            case 5:
+                return "https://www.nytimes.com/2024/" + two(1 + random.nextInt(12)) + "/" + two(1 + random.nextInt(28))
+                        + "/" + SECTIONS[random.nextInt(SECTIONS.length)] + "/" + slug(6) + ".html";
+            case 6:
+                return "https://medium.com/@user" + users.next() + "/" + slug(5) + "-" + token(12).toLowerCase();
+            case 7:
+                return "https://en.wikipedia.org/wiki/" + capitalized(slug(2).replace('-', '_'));
+            default:
+                return "https://shop" + site + ".example.com/products/" + slug(3) + "?utm_source=newsletter"
+                        + "&utm_medium=email&utm_campaign=" + CAMPAIGNS[random.nextInt(CAMPAIGNS.length)]
+                        + "&id=" + random.nextInt(1_000_000);
+        }
+    }
+
+    private String slug(int words) {
+        StringBuilder slug = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                slug.append('-');
+            }
+            slug.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return slug.toString();
+    }
+
+    private String token(int length) {
+        StringBuilder token = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            token.append(ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length())));
+        }
+        return token.toString();
+    }
+
+    private static String two(int value) {
+        return value < 10 ? "0" + value : Integer.toString(value);
+    }
+
+    private static String capitalized(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
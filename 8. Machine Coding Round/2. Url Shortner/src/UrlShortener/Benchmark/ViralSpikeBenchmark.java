@@ -0,0 +1,107 @@
+package UrlShortener.Benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import UrlShortener.Cache.CacheStats;
+import UrlShortener.Metrics.LatencyHistogram;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+
+// Backend load behind a cache-cold viral link: with a slow store, every thread asks for the
+// same uncached key at once, then all threads keep reading a small hot set while the cache TTL
+// keeps running out. Counts the store reads and the lookup latency with plain misses, with
+// single-flight coalescing, and with coalescing plus refresh-ahead.
+// Usage: ViralSpikeBenchmark [threads] [storeLatencyMillis] [seconds]
+public class ViralSpikeBenchmark {
+    private static final int HOT_LINKS = 100;
+    private static final Duration CACHE_TTL = Duration.ofMillis(200);
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        Duration storeLatency = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 5);
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        System.out.printf("threads=%d storeLatency=%dms cacheTtl=%dms hotLinks=%d%n",
+                threads, storeLatency.toMillis(), CACHE_TTL.toMillis(), HOT_LINKS);
+        System.out.println("mode                 spike reads  spike p99 ms  steady reads/s  steady p99 ms  steady miss %");
+        run("plain", threads, storeLatency, seconds, false, null);
+        run("coalesced", threads, storeLatency, seconds, true, null);
+        run("coalesced+refresh", threads, storeLatency, seconds, true, Duration.ofMillis(100));
+    }
+
+    private static void run(String mode, int threads, Duration storeLatency, int seconds, boolean coalesce,
+                            Duration refreshAhead) throws InterruptedException {
+        SlowUrlStore store = new SlowUrlStore(new ChunkedArrayUrlStore(), storeLatency);
+        for (int id = 1; id <= HOT_LINKS + 1; id++) {
+            store.put(id, "https://www.example.com/breaking/" + id);
+        }
+        URLShortenerService service = new URLShortenerService.Builder()
+                .store(store)
+                .coalesceMisses(coalesce)
+                .cacheTtl(CACHE_TTL)
+                .refreshAhead(refreshAhead)
+                .build();
+
+        // Spike: every thread requests the same cold key at the same moment
+        String viral = URLShortenerService.toShortUrl(HOT_LINKS + 1);
+        LatencyHistogram spike = new LatencyHistogram();
+        long before = store.gets();
+        runThreads(threads, thread -> {
+            long start = System.nanoTime();
+            service.getLongUrl(viral);
+            spike.record(System.nanoTime() - start);
+        });
+        long spikeReads = store.gets() - before;
+
+        // Steady: Zipf reads over the hot set for a few cache TTLs
+        LatencyHistogram steady = new LatencyHistogram();
+        CacheStats initial = service.getCache().stats();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        before = store.gets();
+        runThreads(threads, thread -> {
+            ZipfGenerator keys = new ZipfGenerator(HOT_LINKS, 0.99, thread);
+            while (System.nanoTime() < deadline) {
+                String shortUrl = URLShortenerService.toShortUrl(keys.next());
+                long start = System.nanoTime();
+                service.getLongUrl(shortUrl);
+                steady.record(System.nanoTime() - start);
+                Thread.yield();
+            }
+        });
+        double steadyReads = (store.gets() - before) / (double) seconds;
+        CacheStats stats = service.getCache().stats();
+
+        System.out.printf("%-18s %13d %13.1f %15.0f %14.2f %14.2f%n", mode, spikeReads, spike.percentile(0.99) / 1e6,
+                steadyReads, steady.percentile(0.99) / 1e6,
+                100.0 * (stats.missCount() - initial.missCount()) / (stats.requestCount() - initial.requestCount()));
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private static void runThreads(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                worker.run(thread);
+            });
+            workers[t].start();
+        }
+        ready.await();
+        go.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package UrlShortener.Benchmark;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import UrlShortener.Cache.Cache;
+import UrlShortener.Cache.CacheStats;
+import UrlShortener.Cache.ClockCache;
+import UrlShortener.Cache.LruCache;
+import UrlShortener.Cache.WTinyLfuCache;
+import UrlShortener.Metrics.LatencyHistogram;
+import UrlShortener.Service.URLShortenerService;
+import UrlShortener.Store.ChunkedArrayUrlStore;
+import UrlShortener.Store.UrlStore;
+
+// Drives URLShortenerService with a synthetic workload and reports, per cache size and eviction
+// policy, the hit ratio and the getLongUrl latency distribution: a cache-sizing curve.
+// Reads draw keys from Zipf(skew) over keySpace preloaded links; writes shorten new URLs, which
+// also enter the cache the way they do in production. storeLatency adds a spin to every store
+// read to stand in for a remote store, so misses cost what they would there. With a request
+// rate the driver is open-loop: latency is measured from each request's scheduled start, so a
+// stall also counts against the requests queued behind it.
+// Usage: WorkloadSimulator [keySpace] [requests] [zipfExponent] [writePercent] [requestsPerSecond] [storeLatencyMicros]
+public class WorkloadSimulator {
+    private final long keySpace;
+    private final int requests;
+    private final double zipfExponent;
+    private final int writePercent;
+    private final int requestsPerSecond;
+    private final long storeLatencyNanos;
+
+    private WorkloadSimulator(Builder builder) {
+        this.keySpace = builder.keySpace;
+        this.requests = builder.requests;
+        this.zipfExponent = builder.zipfExponent;
+        this.writePercent = builder.writePercent;
+        this.requestsPerSecond = builder.requestsPerSecond;
+        this.storeLatencyNanos = builder.storeLatency.toNanos();
+    }
+
+    public static void main(String[] args) {
+        WorkloadSimulator simulator = new Builder()
+                .keySpace(args.length > 0 ? Long.parseLong(args[0]) : 1_000_000)
+                .requests(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000)
+                .zipfExponent(args.length > 2 ? Double.parseDouble(args[2]) : 0.9)
+                .writePercent(args.length > 3 ? Integer.parseInt(args[3]) : 5)
+                .requestsPerSecond(args.length > 4 ? Integer.parseInt(args[4]) : 0)
+                .storeLatency(Duration.ofNanos(1_000L * (args.length > 5 ? Long.parseLong(args[5]) : 50)))
+                .build();
+
+        Map<String, IntFunction<Cache<Long, String>>> policies = new LinkedHashMap<>();
+        policies.put("LRU", LruCache::new);
+        policies.put("CLOCK", ClockCache::new);
+        policies.put("W-TinyLFU", WTinyLfuCache::new);
+
+        System.out.println(simulator);
+        System.out.println("capacity  policy       hit%    req/s   p50 us   p99 us  p999 us");
+        for (double fraction : new double[] {0.001, 0.005, 0.01, 0.02, 0.05, 0.1, 0.2}) {
+            int capacity = (int) Math.max(1, simulator.keySpace * fraction);
+            for (Map.Entry<String, IntFunction<Cache<Long, String>>> policy : policies.entrySet()) {
+                Result result = simulator.run(policy.getValue().apply(capacity));
+                System.out.printf("%8d  %-9s %7.2f %8.0f %8.1f %8.1f %8.1f%n", capacity, policy.getKey(),
+                        result.hitRatio * 100, result.requestsPerSecond,
+                        result.reads.percentile(0.50) / 1e3, result.reads.percentile(0.99) / 1e3,
+                        result.reads.percentile(0.999) / 1e3);
+            }
+        }
+    }
+
+    // One run on a fresh store preloaded with keySpace links; the first fifth of the requests
+    // warm the cache and are not measured
+    public Result run(Cache<Long, String> cache) {
+        UrlStore store = storeLatencyNanos > 0
+                ? new SlowUrlStore(new ChunkedArrayUrlStore(keySpace), Duration.ofNanos(storeLatencyNanos))
+                : new ChunkedArrayUrlStore(keySpace);
+        for (long id = 1; id <= keySpace; id++) {
+            store.put(id, "https://www.example.com/landing/" + id);
+        }
+        URLShortenerService service = new URLShortenerService.Builder()
+                .store(store)
+                .cache(cache)
+                .firstId(keySpace + 1)
+                .build();
+
+        ZipfGenerator keys = new ZipfGenerator(keySpace, zipfExponent, 42);
+        int warmup = requests / 5;
+        drive(service, keys, warmup, new LatencyHistogram(), 0);
+        CacheStats before = cache.stats();
+        LatencyHistogram reads = new LatencyHistogram();
+        long start = System.nanoTime();
+        drive(service, keys, requests, reads, warmup);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        CacheStats after = cache.stats();
+        long lookups = after.requestCount() - before.requestCount();
+        double hitRatio = lookups == 0 ? 0 : (after.hitCount() - before.hitCount()) / (double) lookups;
+        return new Result(hitRatio, requests / seconds, reads);
+    }
+
+    private void drive(URLShortenerService service, ZipfGenerator keys, int count, LatencyHistogram reads,
+                       long firstRequest) {
+        long intervalNanos = requestsPerSecond > 0 ? 1_000_000_000L / requestsPerSecond : 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (intervalNanos > 0) {
+                while (System.nanoTime() < scheduled) {
+                    Thread.onSpinWait();
+                }
+            } else {
+                scheduled = System.nanoTime();
+            }
+            // Spread writes evenly: request n is a write when n * writePercent crosses a multiple of 100
+            long n = firstRequest + i;
+            if ((n + 1) * writePercent / 100 != n * writePercent / 100) {
+                service.shortenUrl("https://www.example.com/new/" + n);
+            } else {
+                service.getLongUrl(URLShortenerService.toShortUrl(scramble(keys.next())));
+                reads.record(System.nanoTime() - scheduled);
+            }
+        }
+    }
+
+    // Zipf rank -> id, so the hottest links are not simply the oldest ones
+    private long scramble(long rank) {
+        return 1 + Math.floorMod((rank - 1) * 0x9E3779B1L, keySpace);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("keySpace=%d requests=%d zipf=%.2f writes=%d%% rate=%s storeLatency=%dus",
+                keySpace, requests, zipfExponent, writePercent,
+                requestsPerSecond > 0 ? requestsPerSecond + "/s" : "unthrottled", storeLatencyNanos / 1_000);
+    }
+
+    public static final class Result {
+        public final double hitRatio;
+        public final double requestsPerSecond;
+        public final LatencyHistogram reads;
+
+        Result(double hitRatio, double requestsPerSecond, LatencyHistogram reads) {
+            this.hitRatio = hitRatio;
+            this.requestsPerSecond = requestsPerSecond;
+            this.reads = reads;
+        }
+    }
+
+    public static class Builder {
+        private long keySpace = 1_000_000;
+        private int requests = 1_000_000;
+        private double zipfExponent = 0.9;
+        private int writePercent = 5;
+        private int requestsPerSecond;
+        private Duration storeLatency = Duration.ZERO;
+
+        public Builder keySpace(long keySpace) {
+            this.keySpace = keySpace;
+            return this;
+        }
+
+        public Builder requests(int requests) {
+            this.requests = requests;
+            return this;
+        }
+
+        public Builder zipfExponent(double zipfExponent) {
+            this.zipfExponent = zipfExponent;
+            return this;
+        }
+
+        public Builder writePercent(int writePercent) {
+            this.writePercent = writePercent;
+            return this;
+        }
+
+        // 0 runs unthrottled (closed loop)
+        public Builder requestsPerSecond(int requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        public Builder storeLatency(Duration storeLatency) {
+            this.storeLatency = storeLatency;
+            return this;
+        }
+
+        public WorkloadSimulator build() {
+            if (keySpace <= 0 || requests <= 0 || zipfExponent <= 0) {
+                throw new IllegalArgumentException("keySpace, requests and zipfExponent must be positive");
+            }
+            if (writePercent < 0 || writePercent > 100 || requestsPerSecond < 0) {
+                throw new IllegalArgumentException("writePercent must be 0-100 and requestsPerSecond >= 0");
+            }
+            return new WorkloadSimulator(this);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package UrlShortener.Cache;
+
+public interface Cache<K, V> {
+    V get(K key); // null on a miss
+
+    void put(K key, V value);
+
+    void remove(K key);
+
+    int size();
+
+    CacheStats stats();
+}
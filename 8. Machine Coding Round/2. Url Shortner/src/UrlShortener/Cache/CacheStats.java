@@ -0,0 +1,33 @@
+package UrlShortener.Cache;
+
+// Immutable snapshot of a cache's counters
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long hitCount() { return hitCount; }
+    public long missCount() { return missCount; }
+    public long evictionCount() { return evictionCount; }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d evictions=%d hitRate=%.4f",
+                hitCount, missCount, evictionCount, hitRate());
+    }
+}
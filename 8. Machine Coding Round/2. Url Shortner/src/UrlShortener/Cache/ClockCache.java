@@ -0,0 +1,131 @@
+package UrlShortener.Cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// CLOCK (second chance) approximation of LRU.
+// A read only sets a flag on the node, so concurrent readers never take a lock.
+// Removed entries leave their node on the clock; once about capacity of them have piled up
+// (the queue is twice the capacity), the next put sweeps them out.
+public class ClockCache<K, V> implements Cache<K, V> {
+    private final int capacity;
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicInteger removed = new AtomicInteger(); // stale nodes since the last sweep
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public ClockCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.map = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (!node.referenced) { // avoid dirtying the cache line on every hit
+            node.referenced = true;
+        }
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        Node<K, V> existing = map.putIfAbsent(key, node);
+        if (existing != null) {
+            existing.value = value;
+            existing.referenced = true;
+            return;
+        }
+        clock.offer(node);
+        while (map.size() > capacity) {
+            if (!evictOne()) {
+                break;
+            }
+        }
+        if (removed.get() > capacity) {
+            sweep();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        if (map.remove(key) != null) {
+            removed.incrementAndGet(); // its node is dropped by the hand or the next sweep
+        }
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    // Advances the hand until one node is evicted; referenced nodes get a second chance
+    private boolean evictOne() {
+        Node<K, V> node;
+        while ((node = clock.poll()) != null) {
+            if (map.get(node.key) != node) {
+                continue; // removed or replaced
+            }
+            if (node.referenced) {
+                node.referenced = false;
+                clock.offer(node);
+                continue;
+            }
+            if (map.remove(node.key, node)) {
+                evictions.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Unlinks nodes whose entry was removed or replaced; one sweeper at a time
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            removed.set(0);
+            for (Iterator<Node<K, V>> nodes = clock.iterator(); nodes.hasNext(); ) {
+                Node<K, V> node = nodes.next();
+                if (map.get(node.key) != node) {
+                    nodes.remove();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
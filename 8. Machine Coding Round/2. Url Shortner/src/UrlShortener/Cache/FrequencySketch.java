@@ -0,0 +1,73 @@
+package UrlShortener.Cache;
+
+// Count-Min Sketch with four rows of 4-bit counters packed 16 to a long.
+// Counters saturate at 15 and are halved every sampleSize increments so old popularity decays.
+// Not thread-safe: the owning cache calls it under its policy lock.
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int size = (int) Math.min(1 << 30, Math.max(16, Long.highestOneBit(Math.max(1, expectedEntries - 1)) << 1));
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * size);
+    }
+
+    int frequency(int hashCode) {
+        int item = spread(hashCode);
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            int count = (int) ((table[indexOf(item, i)] >>> offsetOf(item, i)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hashCode) {
+        int item = spread(hashCode);
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(item, i);
+            int offset = offsetOf(item, i);
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    // Halves every counter (aging)
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int item, int row) {
+        long hash = (item + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & tableMask;
+    }
+
+    private static int offsetOf(int item, int row) {
+        return ((item >>> (row << 3)) & 0xF) << 2;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,57 @@
+package UrlShortener.Cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The original access-ordered LinkedHashMap LRU, kept as a baseline for comparisons.
+// Every read reorders the list, so all operations share one lock.
+public class LruCache<K, V> implements Cache<K, V> {
+    private final Map<K, V> map;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(int capacity) {
+        this.map = new LinkedHashMap<K, V>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return map.size();
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions);
+    }
+}
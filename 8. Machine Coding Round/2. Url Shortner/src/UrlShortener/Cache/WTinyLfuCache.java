@@ -0,0 +1,404 @@
+package UrlShortener.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Window TinyLFU: a small window LRU (1%) in front of a segmented main LRU (probation 20% + protected 80%).
+// An entry leaving the window only enters the main space if the frequency sketch says it is
+// more popular than the main space's eviction victim, so a one-off scan cannot flush hot keys.
+//
+// Reads are lock-free: the entry comes straight from a ConcurrentHashMap and the access is
+// recorded in a striped, lossy buffer that is replayed against the policy under a tryLock.
+//
+// Optional expiry: entries older than expireAfterWrite read as misses. With refreshAfterWrite,
+// the first hit on an entry past that age also hands its key to the refresher, which is expected
+// to reload it in the background and put() it again; keys that are still being read get
+// reloaded before they expire, idle ones just age out.
+public class WTinyLfuCache<K, V> implements Cache<K, V> {
+    private static final int BUFFER_SIZE = 32;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final Weigher<K, V> weigher;
+    private final FrequencySketch sketch;
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private final AccessOrderList<K, V> window = new AccessOrderList<>();
+    private final AccessOrderList<K, V> probation = new AccessOrderList<>();
+    private final AccessOrderList<K, V> protectedList = new AccessOrderList<>();
+
+    private final AtomicReferenceArray<Node<K, V>>[] readBuffers;
+    private final AtomicInteger[] readCounts;
+
+    private final long expireAfterWriteMillis; // 0: entries never expire
+    private final long refreshAfterWriteMillis; // 0: no refresh-ahead
+    private final LongSupplier clock;
+    private final Consumer<K> refresher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Capacity in entries
+    public WTinyLfuCache(int maximumEntries) {
+        this(maximumEntries, Weigher.singleton(), maximumEntries);
+    }
+
+    // Capacity in the weigher's unit (e.g. bytes); expectedEntries sizes the frequency sketch
+    public WTinyLfuCache(long maximumWeight, Weigher<K, V> weigher, long expectedEntries) {
+        this(maximumWeight, weigher, expectedEntries, null, null, System::currentTimeMillis, null);
+    }
+
+    // expireAfterWrite and refreshAfterWrite may be null; clock is in milliseconds
+    public WTinyLfuCache(long maximumWeight, Weigher<K, V> weigher, long expectedEntries, Duration expireAfterWrite,
+                         Duration refreshAfterWrite, LongSupplier clock, Consumer<K> refresher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive");
+        }
+        this.expireAfterWriteMillis = expireAfterWrite != null ? expireAfterWrite.toMillis() : 0;
+        this.refreshAfterWriteMillis = refreshAfterWrite != null ? refreshAfterWrite.toMillis() : 0;
+        if (expireAfterWrite != null && expireAfterWriteMillis <= 0) {
+            throw new IllegalArgumentException("expireAfterWrite must be at least 1ms");
+        }
+        if (refreshAfterWrite != null && (refreshAfterWriteMillis <= 0 || refresher == null
+                || (expireAfterWriteMillis > 0 && refreshAfterWriteMillis >= expireAfterWriteMillis))) {
+            throw new IllegalArgumentException("refreshAfterWrite needs a refresher and must be below expireAfterWrite");
+        }
+        this.clock = clock;
+        this.refresher = refresher;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.data = new ConcurrentHashMap<>((int) Math.min(1 << 20, expectedEntries));
+
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        AtomicReferenceArray<Node<K, V>>[] buffers = new AtomicReferenceArray[stripes];
+        this.readBuffers = buffers;
+        this.readCounts = new AtomicInteger[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new AtomicReferenceArray<>(BUFFER_SIZE);
+            readCounts[i] = new AtomicInteger();
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (expireAfterWriteMillis > 0 || refreshAfterWriteMillis > 0) {
+            long age = clock.getAsLong() - node.writeMillis;
+            if (expireAfterWriteMillis > 0 && age >= expireAfterWriteMillis) {
+                misses.increment(); // left in place: the reload's put() replaces it, or it is evicted
+                return null;
+            }
+            if (refreshAfterWriteMillis > 0 && age >= refreshAfterWriteMillis && !node.refreshing) {
+                node.refreshing = true; // racy, so a key may rarely be handed over twice
+                refresher.accept(key);
+            }
+        }
+        hits.increment();
+        recordRead(node);
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        long writeMillis = expireAfterWriteMillis > 0 || refreshAfterWriteMillis > 0 ? clock.getAsLong() : 0;
+        policyLock.lock();
+        try {
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                long delta = weight - node.weight;
+                node.value = value;
+                node.weight = weight;
+                node.writeMillis = writeMillis;
+                node.refreshing = false;
+                addWeight(node, delta);
+                onAccess(node);
+            } else {
+                node = new Node<>(key, value, weight);
+                node.writeMillis = writeMillis;
+                data.put(key, node);
+                sketch.increment(key.hashCode());
+                node.queue = Node.WINDOW;
+                window.addLast(node);
+                windowWeight += weight;
+            }
+            drainReadBuffers();
+            evictEntries();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        policyLock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        policyLock.lock();
+        try {
+            return windowWeight + probationWeight + protectedWeight;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    // Replays pending reads against the policy
+    public void cleanUp() {
+        policyLock.lock();
+        try {
+            drainReadBuffers();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void recordRead(Node<K, V> node) {
+        int stripe = (int) Thread.currentThread().getId() & (readBuffers.length - 1);
+        int index = readCounts[stripe].getAndIncrement();
+        if (index < BUFFER_SIZE) {
+            readBuffers[stripe].lazySet(index, node);
+        } // else the buffer is full and the read is dropped; the policy only needs a sample
+        if (index >= DRAIN_THRESHOLD && policyLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        for (int s = 0; s < readBuffers.length; s++) {
+            int count = Math.min(readCounts[s].get(), BUFFER_SIZE);
+            if (count == 0) {
+                continue;
+            }
+            AtomicReferenceArray<Node<K, V>> buffer = readBuffers[s];
+            for (int i = 0; i < count; i++) {
+                Node<K, V> node = buffer.getAndSet(i, null);
+                if (node != null) {
+                    sketch.increment(node.key.hashCode());
+                    onAccess(node);
+                }
+            }
+            readCounts[s].set(0);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.moveToEnd(node);
+                break;
+            case Node.PROBATION: // second hit in main space: promote
+                probation.remove(node);
+                probationWeight -= node.weight;
+                node.queue = Node.PROTECTED;
+                protectedList.addLast(node);
+                protectedWeight += node.weight;
+                demoteProtected();
+                break;
+            case Node.PROTECTED:
+                protectedList.moveToEnd(node);
+                break;
+            default: // already evicted
+        }
+    }
+
+    private void demoteProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedList.pollFirst();
+            protectedWeight -= demoted.weight;
+            demoted.queue = Node.PROBATION;
+            probation.addLast(demoted);
+            probationWeight += demoted.weight;
+        }
+    }
+
+    private void evictEntries() {
+        // Window overflow: the window's LRU entry becomes a candidate for the main space
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            candidate.queue = Node.PROBATION;
+            probation.addLast(candidate);
+            probationWeight += candidate.weight;
+            admit(candidate);
+        }
+        // Weight changes of existing entries can still leave us over the limit
+        while (windowWeight + probationWeight + protectedWeight > maximumWeight) {
+            Node<K, V> victim = mainVictim();
+            if (victim == null) {
+                victim = window.peekFirst();
+            }
+            evict(victim);
+        }
+    }
+
+    // TinyLFU admission: the candidate stays only if it is used more often than the victims it displaces
+    private void admit(Node<K, V> candidate) {
+        int candidateFrequency = sketch.frequency(candidate.key.hashCode());
+        while (windowWeight + probationWeight + protectedWeight > maximumWeight) {
+            Node<K, V> victim = mainVictim();
+            if (victim == null || victim == candidate) {
+                evict(candidate);
+                return;
+            }
+            if (candidateFrequency > sketch.frequency(victim.key.hashCode())) {
+                evict(victim);
+            } else {
+                evict(candidate);
+                return;
+            }
+        }
+    }
+
+    private Node<K, V> mainVictim() {
+        Node<K, V> victim = probation.peekFirst();
+        return victim != null ? victim : protectedList.peekFirst();
+    }
+
+    private void evict(Node<K, V> node) {
+        unlink(node);
+        data.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case Node.PROBATION:
+                probation.remove(node);
+                probationWeight -= node.weight;
+                break;
+            case Node.PROTECTED:
+                protectedList.remove(node);
+                protectedWeight -= node.weight;
+                break;
+            default:
+        }
+        node.queue = Node.DEAD;
+    }
+
+    private void addWeight(Node<K, V> node, long delta) {
+        switch (node.queue) {
+            case Node.WINDOW: windowWeight += delta; break;
+            case Node.PROBATION: probationWeight += delta; break;
+            case Node.PROTECTED: protectedWeight += delta; break;
+            default:
+        }
+    }
+
+    private static final class Node<K, V> {
+        static final int DEAD = 0, WINDOW = 1, PROBATION = 2, PROTECTED = 3;
+
+        final K key;
+        volatile V value;
+        volatile long writeMillis;
+        volatile boolean refreshing;
+        int weight;
+        int queue; // guarded by policyLock
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    // Intrusive doubly linked list, least recently used first
+    private static final class AccessOrderList<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void moveToEnd(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+    }
+}
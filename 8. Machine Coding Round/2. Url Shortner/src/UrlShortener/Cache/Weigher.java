@@ -0,0 +1,11 @@
+package UrlShortener.Cache;
+
+// Size of an entry in whatever unit the cache capacity is expressed in (entries, bytes, ...)
+@FunctionalInterface
+public interface Weigher<K, V> {
+    int weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
@@ -0,0 +1,89 @@
+package UrlShortener.Cluster;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Consistent-hash ring with virtual nodes: each node places virtualNodes tokens on a 64-bit ring
+// and owns the positions from the previous token up to each of its own. Adding a node takes over
+// about 1/(n+1) of the ring, spread in small arcs over all existing nodes; removing one hands its
+// arcs to the nodes that follow them. Immutable, so a router can swap rings without locking reads.
+public final class HashRing {
+    private final int virtualNodes;
+    private final long[] tokens;   // sorted ring positions
+    private final String[] owners; // owners[i] owns (tokens[i - 1], tokens[i]]
+    private final Set<String> nodes;
+
+    public HashRing(int virtualNodes) {
+        this(virtualNodes, new TreeMap<>(), Collections.emptySet());
+    }
+
+    private HashRing(int virtualNodes, TreeMap<Long, String> ring, Set<String> nodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        this.tokens = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        int i = 0;
+        for (var entry : ring.entrySet()) {
+            tokens[i] = entry.getKey();
+            owners[i++] = entry.getValue();
+        }
+        this.nodes = nodes;
+    }
+
+    public HashRing withNode(String node) {
+        if (nodes.contains(node)) {
+            throw new IllegalArgumentException("Node already on the ring: " + node);
+        }
+        Set<String> next = new TreeSet<>(nodes);
+        next.add(node);
+        return build(next);
+    }
+
+    public HashRing withoutNode(String node) {
+        if (!nodes.contains(node)) {
+            throw new IllegalArgumentException("Node not on the ring: " + node);
+        }
+        Set<String> next = new TreeSet<>(nodes);
+        next.remove(node);
+        return build(next);
+    }
+
+    // Node owning a ring position; null on an empty ring
+    public String owner(long position) {
+        if (tokens.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(tokens, position);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == tokens.length ? 0 : i];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    public int virtualNodes() {
+        return virtualNodes;
+    }
+
+    // Rebuilt from the node set, so the ring does not depend on the order nodes joined in.
+    // On a token collision (practically never) the smaller node name keeps the token.
+    private HashRing build(Set<String> nodeSet) {
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodeSet) {
+            for (int v = 0; v < virtualNodes; v++) {
+                ring.merge(Fingerprint.of(node + "#" + v), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        return new HashRing(virtualNodes, ring, Collections.unmodifiableSet(nodeSet));
+    }
+}
@@ -0,0 +1,341 @@
+package UrlShortener.Cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import UrlShortener.Codec.Fingerprint;
+import UrlShortener.Id.IdAllocator;
+import UrlShortener.Id.SequentialIdAllocator;
+import UrlShortener.Service.URLShortenerService;
+
+// Router over several URLShortenerService shards in one JVM. A URL's fingerprint picks one of
+// SLOTS slots, a consistent-hash ring with virtual nodes maps every slot to a shard, and the slot
+// goes into the low bits of the id (id = sequence << SLOT_BITS | slot), so a short key finds its
+// shard without a directory. Both directions of a mapping live on the slot's shard, which dedupes
+// on its own; ids stay unique across shards because the sequence is shared.
+//
+// addShard / removeShard move only the slots whose ring owner changes, while traffic continues:
+// each moving slot is switched to migrating (new writes go to the new owner once the old one has
+// been checked for the URL, reads try both), its mappings are copied in one pass over the old
+// owner's store, the slot is switched over, and only then deleted from the old owner. Membership
+// changes run one at a time.
+//
+// Migration moves store contents only: shards should have neither a journal nor link expiry, and
+// a store that supports remove. Shards see sparse ids, which suit InMemoryUrlStore better than
+// ChunkedArrayUrlStore.
+public class ShardedShortener {
+    public static final int SLOT_BITS = 10;
+    public static final int SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_SEED = 0x9e3779b97f4a7c15L; // slot bits independent of the stores' fingerprint bits
+    private static final int COPY_BATCH = 1000;
+
+    private final IdAllocator sequence;
+    private final Map<String, URLShortenerService> shards = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Route> routes = new AtomicReferenceArray<>(SLOTS);
+    // Read lock: a write into the slot; write lock: switching the slot to migrating
+    private final ReentrantReadWriteLock[] slotLocks = new ReentrantReadWriteLock[SLOTS];
+    private final ReentrantLock membership = new ReentrantLock();
+    private volatile HashRing ring;
+
+    private final LongAdder movedSlots = new LongAdder();
+    private final LongAdder movedMappings = new LongAdder();
+    private volatile long lastRebalanceNanos;
+
+    private ShardedShortener(Builder builder) {
+        this.sequence = builder.ids != null ? builder.ids : new SequentialIdAllocator(1);
+        HashRing initial = new HashRing(builder.virtualNodes);
+        for (String name : builder.shards.keySet()) {
+            initial = initial.withNode(name);
+        }
+        this.ring = initial;
+        this.shards.putAll(builder.shards);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            String owner = initial.owner(position(slot));
+            routes.set(slot, new Route(owner, shards.get(owner), null));
+            slotLocks[slot] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public String shortenUrl(String longUrl) {
+        int slot = slotOf(longUrl);
+        Lock lock = slotLocks[slot].readLock();
+        lock.lock();
+        try {
+            Route route = routes.get(slot);
+            if (route.previous != null) {
+                // Migrating: the URL may so far be mapped on the old owner only
+                long id = route.previous.getStore().findId(longUrl);
+                if (id >= 0) {
+                    return URLShortenerService.toShortUrl(id);
+                }
+            }
+            return route.owner.shortenUrl(longUrl, () -> sequence.nextId() << SLOT_BITS | slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getLongUrl(String shortUrl) {
+        long id = URLShortenerService.parseId(shortUrl);
+        if (id < 0) {
+            return URLShortenerService.NOT_FOUND;
+        }
+        String longUrl = resolve(id);
+        return longUrl != null ? longUrl : URLShortenerService.NOT_FOUND;
+    }
+
+    // null when unknown
+    public String resolve(long id) {
+        int slot = slotOf(id);
+        while (true) {
+            Route route = routes.get(slot);
+            String longUrl = route.previous != null ? route.previous.resolve(id) : null;
+            if (longUrl == null) {
+                longUrl = route.owner.resolve(id);
+            }
+            // A miss while the slot was switched over may have raced with the delete on the old owner
+            if (longUrl != null || routes.get(slot) == route) {
+                return longUrl;
+            }
+        }
+    }
+
+    // Adds a shard and moves the slots it takes over from the others (about 1/n of them)
+    public void addShard(String name, URLShortenerService shard) {
+        membership.lock();
+        try {
+            if (shards.putIfAbsent(name, shard) != null) {
+                throw new IllegalArgumentException("Shard already exists: " + name);
+            }
+            rebalance(ring.withNode(name), null);
+        } finally {
+            membership.unlock();
+        }
+    }
+
+    // Moves the shard's slots to the remaining shards and returns it, emptied of traffic
+    public URLShortenerService removeShard(String name) {
+        membership.lock();
+        try {
+            URLShortenerService shard = shards.get(name);
+            if (shard == null) {
+                throw new IllegalArgumentException("Unknown shard: " + name);
+            }
+            if (shards.size() == 1) {
+                throw new IllegalStateException("Cannot remove the last shard");
+            }
+            rebalance(ring.withoutNode(name), shard);
+            shards.remove(name);
+            return shard;
+        } finally {
+            membership.unlock();
+        }
+    }
+
+    // Caller holds membership. A failure while copying leaves the moving slots migrating, which
+    // keeps every mapping readable from one of the two shards.
+    private void rebalance(HashRing next, URLShortenerService leaving) {
+        long start = System.nanoTime();
+        List<Integer> moving = new ArrayList<>();
+        Set<URLShortenerService> sources = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Route route = routes.get(slot);
+            String owner = next.owner(position(slot));
+            if (!owner.equals(route.name)) {
+                // Waits for writes in flight on the old owner; later ones see the migrating route
+                Lock lock = slotLocks[slot].writeLock();
+                lock.lock();
+                try {
+                    routes.set(slot, new Route(owner, shards.get(owner), route.owner));
+                } finally {
+                    lock.unlock();
+                }
+                moving.add(slot);
+                sources.add(route.owner);
+            }
+        }
+        ring = next;
+
+        Map<URLShortenerService, IdList> copied = new IdentityHashMap<>();
+        for (URLShortenerService source : sources) {
+            IdList ids = new IdList();
+            Map<URLShortenerService, Batch> batches = new IdentityHashMap<>();
+            source.getStore().forEach((id, longUrl) -> {
+                Route route = routes.get(slotOf(id));
+                if (route.previous == source) {
+                    Batch batch = batches.computeIfAbsent(route.owner, Batch::new);
+                    if (batch.add(id, longUrl)) {
+                        batch.flush();
+                    }
+                    ids.add(id);
+                }
+            });
+            for (Batch batch : batches.values()) {
+                batch.flush();
+            }
+            copied.put(source, ids);
+        }
+
+        // New writes already go to the new owners, so no lock is needed to finish the switch
+        for (int slot : moving) {
+            Route route = routes.get(slot);
+            routes.set(slot, new Route(route.name, route.owner, null));
+        }
+        copied.forEach((source, ids) -> {
+            if (source != leaving) {
+                for (int i = 0; i < ids.size; i++) {
+                    source.getStore().remove(ids.ids[i]);
+                    source.getCache().remove(ids.ids[i]);
+                }
+            }
+            movedMappings.add(ids.size);
+        });
+        movedSlots.add(moving.size());
+        lastRebalanceNanos = System.nanoTime() - start;
+    }
+
+    public static int slotOf(String longUrl) {
+        return (int) (Fingerprint.mix(Fingerprint.of(longUrl) ^ SLOT_SEED) >>> (64 - SLOT_BITS));
+    }
+
+    public static int slotOf(long id) {
+        return (int) (id & (SLOTS - 1));
+    }
+
+    private static long position(int slot) {
+        return Fingerprint.mix(slot);
+    }
+
+    // Name of the shard a short URL currently routes to (the new owner while migrating)
+    public String shardOf(String shortUrl) {
+        long id = URLShortenerService.parseId(shortUrl);
+        return id < 0 ? null : routes.get(slotOf(id)).name;
+    }
+
+    public URLShortenerService shard(String name) {
+        return shards.get(name);
+    }
+
+    // Slots owned per shard, in name order
+    public Map<String, Integer> slotsPerShard() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            counts.merge(routes.get(slot).name, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public HashRing ring() {
+        return ring;
+    }
+
+    public long movedSlots() {
+        return movedSlots.sum();
+    }
+
+    public long movedMappings() {
+        return movedMappings.sum();
+    }
+
+    public long lastRebalanceNanos() {
+        return lastRebalanceNanos;
+    }
+
+    // owner takes new writes; previous is the old owner while the slot is migrating, else null
+    private static final class Route {
+        final String name;
+        final URLShortenerService owner;
+        final URLShortenerService previous;
+
+        Route(String name, URLShortenerService owner, URLShortenerService previous) {
+            this.name = name;
+            this.owner = owner;
+            this.previous = previous;
+        }
+    }
+
+    // Mappings bound for one new owner, written with one putAll per COPY_BATCH
+    private static final class Batch {
+        final URLShortenerService target;
+        final long[] ids = new long[COPY_BATCH];
+        final List<String> longUrls = new ArrayList<>(COPY_BATCH);
+
+        Batch(URLShortenerService target) {
+            this.target = target;
+        }
+
+        // true when full
+        boolean add(long id, String longUrl) {
+            ids[longUrls.size()] = id;
+            longUrls.add(longUrl);
+            return longUrls.size() == COPY_BATCH;
+        }
+
+        void flush() {
+            if (!longUrls.isEmpty()) {
+                target.getStore().putAll(ids, longUrls);
+                longUrls.clear();
+            }
+        }
+    }
+
+    private static final class IdList {
+        long[] ids = new long[64];
+        int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    public static class Builder {
+        private final Map<String, URLShortenerService> shards = new LinkedHashMap<>();
+        private int virtualNodes = 128;
+        private IdAllocator ids;
+
+        public Builder shard(String name, URLShortenerService shard) {
+            if (shards.putIfAbsent(name, shard) != null) {
+                throw new IllegalArgumentException("Shard already exists: " + name);
+            }
+            return this;
+        }
+
+        // Ring tokens per shard: more smooth out the slot split, fewer make rebuilding the ring cheaper
+        public Builder virtualNodes(int virtualNodes) {
+            if (virtualNodes <= 0) {
+                throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+            }
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        // Source of the id sequence shared by all shards (default: SequentialIdAllocator from 1)
+        public Builder idAllocator(IdAllocator ids) {
+            this.ids = ids;
+            return this;
+        }
+
+        public ShardedShortener build() {
+            if (shards.isEmpty()) {
+                throw new IllegalStateException("A sharded shortener needs at least one shard");
+            }
+            return new ShardedShortener(this);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package UrlShortener.Codec;
+
+public final class Base62 {
+    public static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    public static final int MAX_LENGTH = 11; // Long.MAX_VALUE needs 11 digits
+    private static final int BASE = ALPHABET.length();
+    private static final char[] DIGITS = ALPHABET.toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            VALUES[DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private Base62() {
+    }
+
+    public static String encode(long number) {
+        char[] buffer = new char[MAX_LENGTH];
+        int length = encode(number, buffer, 0);
+        return new String(buffer, 0, length);
+    }
+
+    // Writes the key into dst starting at offset and returns its length. Allocates nothing.
+    public static int encode(long number, char[] dst, int offset) {
+        int length = length(number);
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dst[i] = DIGITS[(int) (number % BASE)];
+            number /= BASE;
+        }
+        return length;
+    }
+
+    // Same as above for ASCII byte buffers (network / file output)
+    public static int encode(long number, byte[] dst, int offset) {
+        int length = length(number);
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dst[i] = (byte) DIGITS[(int) (number % BASE)];
+            number /= BASE;
+        }
+        return length;
+    }
+
+    public static int length(long number) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Negative id: " + number);
+        }
+        int length = 1;
+        while (number >= BASE) {
+            number /= BASE;
+            length++;
+        }
+        return length;
+    }
+
+    public static long decode(String key) {
+        return decode(key, 0, key.length());
+    }
+
+    // Decodes chars [from, to) without copying them out of the input.
+    // Returns -1 when the range is empty, contains a non-Base62 char or overflows a long.
+    public static long decode(CharSequence key, int from, int to) {
+        if (from >= to || to - from > MAX_LENGTH) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = from; i < to; i++) {
+            char c = key.charAt(i);
+            int digit = c < 128 ? VALUES[c] : -1;
+            if (digit < 0 || number > (Long.MAX_VALUE - digit) / BASE) {
+                return -1;
+            }
+            number = number * BASE + digit;
+        }
+        return number;
+    }
+
+    // Decodes ASCII bytes [from, to), e.g. straight out of a request buffer
+    public static long decode(byte[] key, int from, int to) {
+        if (from >= to || to - from > MAX_LENGTH) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = from; i < to; i++) {
+            int b = key[i];
+            int digit = b >= 0 ? VALUES[b] : -1;
+            if (digit < 0 || number > (Long.MAX_VALUE - digit) / BASE) {
+                return -1;
+            }
+            number = number * BASE + digit;
+        }
+        return number;
+    }
+}
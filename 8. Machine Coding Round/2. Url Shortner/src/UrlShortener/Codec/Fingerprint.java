@@ -0,0 +1,107 @@
+package UrlShortener.Codec;
+
+// 64-bit hash of a URL's UTF-8 bytes.
+// The CharSequence overload encodes on the fly, so hashing a String and hashing its stored
+// bytes give the same fingerprint without allocating a byte[].
+public final class Fingerprint {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Fingerprint() {
+    }
+
+    public static long of(CharSequence text) {
+        return of(text, 0);
+    }
+
+    // Keyed variant: different seeds give independent hash functions
+    public static long of(CharSequence text, long seed) {
+        long h = seed;
+        long word = 0;
+        int filled = 0;
+        long total = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int c = text.charAt(i);
+            int encoded;
+            int count;
+            if (c < 0x80) {
+                encoded = c;
+                count = 1;
+            } else if (c < 0x800) {
+                encoded = (0xC0 | (c >>> 6)) | (0x80 | (c & 0x3F)) << 8;
+                count = 2;
+            } else if (Character.isHighSurrogate((char) c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint((char) c, text.charAt(++i));
+                encoded = (0xF0 | (cp >>> 18)) | (0x80 | ((cp >>> 12) & 0x3F)) << 8
+                        | (0x80 | ((cp >>> 6) & 0x3F)) << 16 | (0x80 | (cp & 0x3F)) << 24;
+                count = 4;
+            } else {
+                if (Character.isSurrogate((char) c)) {
+                    c = '?'; // unpaired surrogate, encoded like String.getBytes(UTF_8) does
+                    encoded = c;
+                    count = 1;
+                } else {
+                    encoded = (0xE0 | (c >>> 12)) | (0x80 | ((c >>> 6) & 0x3F)) << 8 | (0x80 | (c & 0x3F)) << 16;
+                    count = 3;
+                }
+            }
+            for (int b = 0; b < count; b++) {
+                word |= (long) ((encoded >>> (b << 3)) & 0xFF) << (filled << 3);
+                total++;
+                if (++filled == 8) {
+                    h = round(h, word);
+                    word = 0;
+                    filled = 0;
+                }
+            }
+        }
+        if (filled > 0) {
+            h = round(h, word);
+        }
+        return mix(h ^ total);
+    }
+
+    public static long of(byte[] utf8, int offset, int length) {
+        return of(utf8, offset, length, 0);
+    }
+
+    public static long of(byte[] utf8, int offset, int length, long seed) {
+        long h = seed;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 8 <= end; i += 8) {
+            long word = 0;
+            for (int b = 0; b < 8; b++) {
+                word |= (long) (utf8[i + b] & 0xFF) << (b << 3);
+            }
+            h = round(h, word);
+        }
+        if (i < end) {
+            long word = 0;
+            for (int b = 0; i + b < end; b++) {
+                word |= (long) (utf8[i + b] & 0xFF) << (b << 3);
+            }
+            h = round(h, word);
+        }
+        return mix(h ^ length);
+    }
+
+    // MurmurHash3 finalizer: full avalanche of a 64-bit value (also used to scatter ids)
+    public static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long round(long h, long word) {
+        word *= C1;
+        word = Long.rotateLeft(word, 31);
+        word *= C2;
+        h ^= word;
+        return Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+    }
+}
@@ -0,0 +1,147 @@
+package UrlShortener.Codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Packs a long URL into one byte[]: [varint prefix code][UTF-8 remainder]. Prefixes come from a
+// shared dictionary of "scheme://host/" and "scheme://host/some/directory/" strings, so the parts
+// every link to a site repeats are stored once. Code 0 means no prefix.
+//
+// Hosts are admitted on first sight. A directory is admitted on its second sight (a direct-mapped
+// doorkeeper of fingerprints filters the one-off paths), so unique paths do not fill the
+// dictionary. Once it holds maxEntries prefixes, new URLs keep their whole text as the remainder.
+// Codes are never reassigned, so encoded values stay valid for the life of the compressor.
+public class UrlCompressor {
+    private static final int DOORKEEPER_SLOTS = 1 << 12;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile byte[][] prefixes = new byte[64][]; // code - 1 -> UTF-8 prefix
+    private int entries; // guarded by this
+    private final AtomicLongArray doorkeeper = new AtomicLongArray(DOORKEEPER_SLOTS);
+
+    public UrlCompressor() {
+        this(1 << 16);
+    }
+
+    public UrlCompressor(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    public byte[] compress(String longUrl) {
+        int schemeEnd = longUrl.indexOf("://");
+        int code = 0;
+        int prefixLength = 0;
+        if (schemeEnd > 0) {
+            int hostEnd = longUrl.indexOf('/', schemeEnd + 3);
+            if (hostEnd > 0) {
+                int pathEnd = firstOf(longUrl, '?', '#', hostEnd);
+                int directoryEnd = longUrl.lastIndexOf('/', pathEnd - 1) + 1;
+                if (directoryEnd > hostEnd + 1) {
+                    code = lookup(longUrl.substring(0, directoryEnd), false);
+                    prefixLength = code > 0 ? directoryEnd : 0;
+                }
+                if (code == 0) {
+                    code = lookup(longUrl.substring(0, hostEnd + 1), true);
+                    prefixLength = code > 0 ? hostEnd + 1 : 0;
+                }
+            }
+        }
+        byte[] remainder = longUrl.substring(prefixLength).getBytes(StandardCharsets.UTF_8);
+        int header = varIntLength(code);
+        byte[] packed = new byte[header + remainder.length];
+        for (int i = 0, value = code; i < header; i++, value >>>= 7) {
+            packed[i] = (byte) (i == header - 1 ? value : (value & 0x7f) | 0x80);
+        }
+        System.arraycopy(remainder, 0, packed, header, remainder.length);
+        return packed;
+    }
+
+    public String decompress(byte[] packed) {
+        int code = 0;
+        int position = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = packed[position++];
+            code |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (code == 0) {
+            return new String(packed, position, packed.length - position, StandardCharsets.UTF_8);
+        }
+        byte[] prefix = prefixes[code - 1];
+        byte[] utf8 = Arrays.copyOf(prefix, prefix.length + packed.length - position);
+        System.arraycopy(packed, position, utf8, prefix.length, packed.length - position);
+        return new String(utf8, StandardCharsets.UTF_8); // one decode pass, no intermediate String
+    }
+
+    public int dictionarySize() {
+        return codes.size();
+    }
+
+    // Total characters held by the dictionary, for memory accounting
+    public long dictionaryChars() {
+        long chars = 0;
+        for (String prefix : codes.keySet()) {
+            chars += prefix.length();
+        }
+        return chars;
+    }
+
+    private int lookup(String prefix, boolean admitOnFirstSight) {
+        Integer code = codes.get(prefix);
+        if (code != null) {
+            return code;
+        }
+        if (!admitOnFirstSight) {
+            long fingerprint = Fingerprint.of(prefix) | 1; // 0 marks an empty slot
+            int slot = (int) (fingerprint >>> 52) & (DOORKEEPER_SLOTS - 1);
+            if (doorkeeper.getAndSet(slot, fingerprint) != fingerprint) {
+                return 0;
+            }
+        }
+        return admit(prefix);
+    }
+
+    private synchronized int admit(String prefix) {
+        Integer code = codes.get(prefix);
+        if (code != null) {
+            return code;
+        }
+        if (entries == maxEntries) {
+            return 0;
+        }
+        byte[][] table = prefixes;
+        if (entries == table.length) {
+            table = Arrays.copyOf(table, Math.min(maxEntries, table.length * 2));
+        }
+        table[entries] = prefix.getBytes(StandardCharsets.UTF_8);
+        prefixes = table; // published before the code can be handed out
+        codes.put(prefix, ++entries);
+        return entries;
+    }
+
+    private static int firstOf(String text, char a, char b, int from) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == a || c == b) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+}
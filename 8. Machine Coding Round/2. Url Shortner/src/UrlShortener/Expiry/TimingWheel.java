@@ -0,0 +1,292 @@
+package UrlShortener.Expiry;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+// Hierarchical timing wheel (Varghese & Lauck) of link deadlines: LEVELS wheels of 64 slots,
+// level L slots spanning 64^L ticks. A deadline goes to the lowest level whose next-higher block
+// it shares with the current tick, and moves down one level each time the clock enters its block,
+// so schedule, cancel and expiry are O(1) and each entry is moved at most LEVELS times.
+// Nothing ever scans the stored links. advance() does not step through empty ticks either: a
+// bitmap of non-empty slots per level gives the next tick at which a slot expires or cascades,
+// so a long pause or a far deadline on a fine tick costs O(LEVELS) per visited slot.
+//
+// Slots are intrusive doubly linked lists, guarded by one lock held only for pointer updates.
+// onExpire runs on the ticker thread outside the lock; an id stays visible to isExpired until
+// onExpire returns, so readers never see a half-removed link as live.
+public class TimingWheel implements Closeable {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 7; // 64^7 ticks: centuries even at 1ms ticks
+
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private final LongConsumer onExpire;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Node[][] wheels = new Node[LEVELS][SLOTS]; // sentinel per slot
+    private final long[] occupied = new long[LEVELS]; // bit per slot that may be non-empty, guarded by lock
+    private final ConcurrentHashMap<Long, Node> nodes = new ConcurrentHashMap<>();
+    private long currentTick; // next tick to process, guarded by lock
+    private final ScheduledExecutorService ticker;
+
+    // tick is the expiry resolution of the wheel (isExpired itself is exact);
+    // tick of null leaves advancing to the caller
+    public TimingWheel(Duration tick, LongSupplier clock, LongConsumer onExpire) {
+        this.tickMillis = tick != null ? Math.max(1, tick.toMillis()) : 1;
+        this.clock = clock;
+        this.onExpire = onExpire;
+        this.currentTick = clock.getAsLong() / tickMillis;
+        for (Node[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Node sentinel = new Node(-1, 0);
+                sentinel.prev = sentinel.next = sentinel;
+                wheel[slot] = sentinel;
+            }
+        }
+        if (tick != null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "link-expiry-wheel");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(() -> {
+                try {
+                    advance();
+                } catch (RuntimeException e) {
+                    System.err.println("Link expiry failed: " + e); // keep ticking
+                }
+            }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        } else {
+            ticker = null;
+        }
+    }
+
+    // Sets (or replaces) the deadline of id; false if id is already being expired
+    public boolean schedule(long id, long deadlineMillis) {
+        lock.lock();
+        try {
+            Node node = nodes.get(id);
+            if (node == null) {
+                node = new Node(id, deadlineMillis);
+                nodes.put(id, node);
+            } else if (node.expiring) {
+                return false;
+            } else {
+                unlink(node);
+                node.deadline = deadlineMillis;
+            }
+            place(node);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Pushes an existing deadline out to deadlineMillis if that is later. Ids without a deadline
+    // are left alone (they never expire). False if id is already being expired.
+    public boolean extend(long id, long deadlineMillis) {
+        lock.lock();
+        try {
+            Node node = nodes.get(id);
+            if (node == null) {
+                return true;
+            }
+            if (node.expiring) {
+                return false;
+            }
+            if (deadlineMillis > node.deadline) {
+                unlink(node);
+                node.deadline = deadlineMillis;
+                place(node);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes the deadline of id; false if id is already being expired
+    public boolean cancel(long id) {
+        lock.lock();
+        try {
+            Node node = nodes.get(id);
+            if (node == null) {
+                return true;
+            }
+            if (node.expiring) {
+                return false;
+            }
+            unlink(node);
+            nodes.remove(id);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Exact check for the read path: true from the deadline on, even before the wheel reaches it
+    public boolean isExpired(long id) {
+        Node node = nodes.get(id);
+        return node != null && (node.expiring || node.deadline <= clock.getAsLong());
+    }
+
+    // Deadline in epoch millis, or -1 when id never expires
+    public long deadline(long id) {
+        Node node = nodes.get(id);
+        return node != null ? node.deadline : -1;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // Expires everything due up to now; called by the ticker
+    public void advance() {
+        long targetTick = clock.getAsLong() / tickMillis;
+        List<Node> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            while (currentTick <= targetTick) {
+                // Entering a new block at level L: spread its slot over the levels below
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                        cascade(level);
+                    }
+                }
+                int slot = (int) (currentTick & (SLOTS - 1));
+                occupied[0] &= ~(1L << slot);
+                Node parked = null; // not due: parked at the horizon, placed again from the next tick
+                for (Node node = detach(wheels[0][slot]); node != null; ) {
+                    Node next = node.next;
+                    node.prev = null;
+                    if (node.deadline / tickMillis <= currentTick) {
+                        node.next = null;
+                        node.expiring = true;
+                        expired.add(node);
+                    } else {
+                        node.next = parked;
+                        parked = node;
+                    }
+                    node = next;
+                }
+                currentTick++;
+                while (parked != null) {
+                    Node next = parked.next;
+                    parked.next = null;
+                    place(parked);
+                    parked = next;
+                }
+                currentTick = Math.min(nextBusyTick(), targetTick + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Node node : expired) {
+            try {
+                onExpire.accept(node.id);
+            } finally {
+                nodes.remove(node.id, node);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdown();
+        }
+    }
+
+    private void cascade(int level) {
+        int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        occupied[level] &= ~(1L << slot);
+        for (Node node = detach(wheels[level][slot]); node != null; ) {
+            Node next = node.next;
+            node.prev = node.next = null;
+            place(node);
+            node = next;
+        }
+    }
+
+    // First tick from currentTick on at which a slot is due: a level-0 slot expires, a higher one
+    // cascades. Entries at level L share the level L+1 block with currentTick and sit in a slot at
+    // or above its level-L digit. Long.MAX_VALUE when the wheel is empty.
+    private long nextBusyTick() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            int digit = (int) ((currentTick >>> shift) & (SLOTS - 1));
+            long candidates = occupied[level] & (-1L << digit);
+            while (candidates != 0) {
+                int slot = Long.numberOfTrailingZeros(candidates);
+                Node sentinel = wheels[level][slot];
+                if (sentinel.next != sentinel) {
+                    long block = (currentTick >>> (shift + SLOT_BITS)) << (shift + SLOT_BITS);
+                    next = Math.min(next, block | ((long) slot << shift));
+                    break;
+                }
+                occupied[level] &= ~(1L << slot); // emptied by cancel or reschedule
+                candidates &= candidates - 1;
+            }
+        }
+        return next;
+    }
+
+    // Empties a slot and returns its entries as a null-terminated chain, so entries placed back
+    // into the same slot are not visited twice
+    private static Node detach(Node sentinel) {
+        if (sentinel.next == sentinel) {
+            return null;
+        }
+        Node first = sentinel.next;
+        sentinel.prev.next = null;
+        sentinel.prev = sentinel.next = sentinel;
+        return first;
+    }
+
+    // Caller holds lock
+    private void place(Node node) {
+        long tick = Math.max(node.deadline / tickMillis, currentTick); // overdue: next processed slot
+        long horizon = currentTick | ((1L << (SLOT_BITS * LEVELS)) - 1);
+        tick = Math.min(tick, horizon); // beyond the top wheel: parked at its end, placed again from there
+        int level = 0;
+        while ((tick >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        occupied[level] |= 1L << slot;
+        Node sentinel = wheels[level][slot];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+    private static final class Node {
+        final long id;
+        volatile long deadline;
+        volatile boolean expiring;
+        Node prev;
+        Node next;
+
+        Node(long id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+    }
+}
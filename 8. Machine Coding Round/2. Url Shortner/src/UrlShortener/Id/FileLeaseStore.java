@@ -0,0 +1,90 @@
+package UrlShortener.Id;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Lease store for instances on one machine (or a shared filesystem with working locks).
+//   <file>     - 8 bytes: the first id not yet leased
+//   <file>.log - one "owner start end" line per lease, for audit and for resuming after a crash
+// A process-level FileLock guards other JVMs; the monitor guards threads of this JVM, which
+// FileLock does not (it throws OverlappingFileLockException instead).
+public class FileLeaseStore implements LeaseStore {
+    private static final ConcurrentHashMap<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Path log;
+    private final long firstId;
+
+    public FileLeaseStore(Path file) {
+        this(file, 1);
+    }
+
+    public FileLeaseStore(Path file, long firstId) {
+        this.file = file.toAbsolutePath().normalize();
+        this.log = Path.of(this.file + ".log");
+        this.firstId = firstId;
+    }
+
+    @Override
+    @SuppressWarnings("try") // the lock is held for the body and released on close
+    public IdLease acquire(String owner, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        synchronized (MONITORS.computeIfAbsent(file, path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                ByteBuffer next = ByteBuffer.allocate(8);
+                long start = channel.read(next, 0) == 8 ? next.flip().getLong() : firstId;
+                IdLease lease = new IdLease(owner, start, start + blockSize);
+                // Advance and force the counter before logging the lease: a crash in between only
+                // wastes the block. Logged first, the block would be both resumable by this owner
+                // and, with the counter not yet moved, leased again to the next one.
+                next.clear();
+                next.putLong(lease.end()).flip();
+                channel.write(next, 0);
+                channel.force(false);
+                try (FileChannel logChannel = FileChannel.open(log, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    logChannel.write(StandardCharsets.UTF_8.encode(
+                            owner + " " + lease.start() + " " + lease.end() + System.lineSeparator()));
+                    logChannel.force(false);
+                }
+                return lease;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot lease ids from " + file, e);
+            }
+        }
+    }
+
+    @Override
+    public IdLease lastLease(String owner) {
+        synchronized (MONITORS.computeIfAbsent(file, path -> new Object())) {
+            if (!Files.exists(log)) {
+                return null;
+            }
+            try {
+                List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+                for (int i = lines.size() - 1; i >= 0; i--) {
+                    String[] parts = lines.get(i).split(" ");
+                    if (parts.length == 3 && parts[0].equals(owner)) {
+                        return new IdLease(owner, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package UrlShortener.Id;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Stateless alternative to a counter: the id of a URL is a keyed 64-bit hash of it, scaled into
+// the ids whose Base62 key has exactly `length` digits. Probe p of a URL hashes it with a seed
+// derived from the secret and p, so every instance with the same secret derives the same probe
+// sequence for a URL, and the key of a stored link can be re-derived without asking anyone.
+// A probe taken by another URL moves on to the next one.
+//
+// Keys are neither sequential nor enumerable without the secret, but the hash is not a MAC: it
+// hides the order of links, not the links themselves. Two instances claiming the same free id for
+// different URLs at the same moment must be told apart by the store (a unique id); within one
+// instance claims are serialized here.
+public class HashKeyAllocator {
+    public static final int MAX_KEY_LENGTH = 10; // 62^10 still fits a long twice over
+    private static final long PROBE_SEED = 0x9e3779b97f4a7c15L;
+
+    private final int length;
+    private final long secret;
+    private final int maxProbes;
+    private final long first;  // smallest id with `length` digits
+    private final long space;  // number of ids with `length` digits
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet(); // handed out, not yet stored
+    private final LongAdder collisions = new LongAdder();
+
+    public HashKeyAllocator(int length, long secret, int maxProbes) {
+        if (length < 1 || length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key length must be in [1, " + MAX_KEY_LENGTH + "]: " + length);
+        }
+        if (maxProbes < 1) {
+            throw new IllegalArgumentException("maxProbes must be positive: " + maxProbes);
+        }
+        this.length = length;
+        this.secret = secret;
+        this.maxProbes = maxProbes;
+        long low = 1;
+        for (int i = 1; i < length; i++) {
+            low *= 62;
+        }
+        this.first = length == 1 ? 0 : low;
+        this.space = low * 62 - first;
+    }
+
+    // Id of probe p of longUrl, uniform over the `length`-digit ids
+    public long candidate(String longUrl, int probe) {
+        long hash = Fingerprint.of(longUrl, secret ^ Fingerprint.mix(PROBE_SEED * (probe + 1)));
+        return first + Math.multiplyHigh(hash >>> 1, space << 1);
+    }
+
+    // First probe of longUrl that is neither taken (per the store) nor claimed by a concurrent
+    // call. The claim holds until release(), which the caller does once the mapping is stored.
+    public long claim(String longUrl, LongPredicate taken) {
+        for (int probe = 0; probe < maxProbes; probe++) {
+            long id = candidate(longUrl, probe);
+            if (!taken.test(id) && claimed.add(id)) {
+                if (!taken.test(id)) {
+                    return id;
+                }
+                claimed.remove(id); // stored by someone else between the check and the claim
+            }
+            collisions.increment();
+        }
+        throw new IllegalStateException("No free key after " + maxProbes + " probes: the " + length
+                + "-digit key space is too full");
+    }
+
+    public void release(long id) {
+        claimed.remove(id);
+    }
+
+    // Probes skipped because their id was in use
+    public long collisions() {
+        return collisions.sum();
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // Number of distinct keys
+    public long keySpace() {
+        return space;
+    }
+}
@@ -0,0 +1,9 @@
+package UrlShortener.Id;
+
+// Source of ids for new short keys
+public interface IdAllocator {
+    long nextId();
+
+    // Reserves count consecutive ids in one step and returns the first
+    long reserve(int count);
+}
@@ -0,0 +1,23 @@
+package UrlShortener.Id;
+
+// Ids [start, end) granted to one owner; nobody else will ever be given them
+public final class IdLease {
+    private final String owner;
+    private final long start;
+    private final long end;
+
+    public IdLease(String owner, long start, long end) {
+        this.owner = owner;
+        this.start = start;
+        this.end = end;
+    }
+
+    public String owner() { return owner; }
+    public long start() { return start; }
+    public long end() { return end; }
+
+    @Override
+    public String toString() {
+        return owner + " [" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,8 @@
+package UrlShortener.Id;
+
+// Shared authority that hands out disjoint id blocks to shortener instances
+public interface LeaseStore {
+    IdLease acquire(String owner, int blockSize);
+
+    IdLease lastLease(String owner); // null if the owner never leased
+}
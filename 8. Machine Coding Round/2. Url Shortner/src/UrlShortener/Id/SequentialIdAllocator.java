@@ -0,0 +1,22 @@
+package UrlShortener.Id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-process counter: correct only while one instance mints keys
+public class SequentialIdAllocator implements IdAllocator {
+    private final AtomicLong counter;
+
+    public SequentialIdAllocator(long firstId) {
+        this.counter = new AtomicLong(firstId);
+    }
+
+    @Override
+    public long nextId() {
+        return counter.getAndIncrement();
+    }
+
+    @Override
+    public long reserve(int count) {
+        return counter.getAndAdd(count);
+    }
+}
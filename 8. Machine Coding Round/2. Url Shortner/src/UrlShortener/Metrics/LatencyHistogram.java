@@ -0,0 +1,122 @@
+package UrlShortener.Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free log-linear histogram (HdrHistogram style): exact below 256, then 128 linear
+// sub-buckets per power of two, i.e. under 1% relative error from nanoseconds to centuries.
+// record() is one atomic array increment; counts and percentiles are computed on read.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = 2 * SUB_COUNT;
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long value) {
+        counts.getAndIncrement(index(Math.max(0, value)));
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    // Smallest recorded value v (bucket upper bound) such that a fraction q of recordings is <= v
+    public long percentile(double q) {
+        long count = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return highestEquivalent(i);
+            }
+        }
+        return highestEquivalent(BUCKETS - 1);
+    }
+
+    public long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return highestEquivalent(i);
+            }
+        }
+        return 0;
+    }
+
+    public double mean() {
+        long count = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c != 0) {
+                count += c;
+                sum += c * ((lowestEquivalent(i) + highestEquivalent(i)) / 2.0);
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    // Adds other's recordings into this histogram
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.getAndAdd(i, c);
+            }
+        }
+    }
+
+    // Recordings made after earlier was copied from this histogram (e.g. the last interval)
+    public LatencyHistogram since(LatencyHistogram earlier) {
+        LatencyHistogram interval = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i) - earlier.counts.get(i);
+            if (c > 0) {
+                interval.counts.set(i, c);
+            }
+        }
+        return interval;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+        return LINEAR + (shift - 1) * SUB_COUNT + sub;
+    }
+
+    static long lowestEquivalent(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_COUNT + 1;
+        int sub = (index - LINEAR) % SUB_COUNT;
+        return (long) (SUB_COUNT + sub) << shift;
+    }
+
+    static long highestEquivalent(int index) {
+        return index + 1 < BUCKETS ? lowestEquivalent(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
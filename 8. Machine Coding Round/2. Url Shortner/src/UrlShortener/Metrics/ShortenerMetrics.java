@@ -0,0 +1,185 @@
+package UrlShortener.Metrics;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import UrlShortener.Cache.CacheStats;
+import UrlShortener.Codec.Fingerprint;
+
+// Instrumentation of one URLShortenerService: shorten and resolve latency histograms and the
+// number of ids allocated, recorded on the request path; cache counters and map sizes, read from
+// the cache and store only when asked. Read through the getters and format() (pull), or dumped
+// as text every interval by startDump(); latencies and rates in a dump cover its interval.
+//
+// Recording is one atomic increment in a histogram stripe picked by thread (as in ClickAnalytics),
+// so threads reporting the same latency do not share a counter; reads merge the stripes.
+public class ShortenerMetrics implements Closeable {
+    private static final int MAX_STRIPES = 16;
+
+    private final LatencyHistogram[] shorten;
+    private final LatencyHistogram[] resolve;
+    private final int stripeMask;
+    private final LongAdder idsAllocated = new LongAdder();
+    private final Supplier<CacheStats> cacheStats;
+    private final IntSupplier cacheSize;
+    private final LongSupplier storeSize;
+    private final long startNanos = System.nanoTime();
+    private ScheduledExecutorService dumper; // guarded by this
+
+    public ShortenerMetrics(Supplier<CacheStats> cacheStats, IntSupplier cacheSize, LongSupplier storeSize) {
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.shorten = new LatencyHistogram[stripeCount];
+        this.resolve = new LatencyHistogram[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            shorten[i] = new LatencyHistogram();
+            resolve[i] = new LatencyHistogram();
+        }
+        this.stripeMask = stripeCount - 1;
+        this.cacheStats = cacheStats;
+        this.cacheSize = cacheSize;
+        this.storeSize = storeSize;
+    }
+
+    // Nanoseconds spent in one shortenUrl call
+    public void recordShorten(long nanos) {
+        shorten[stripe()].record(nanos);
+    }
+
+    // Nanoseconds spent in one lookup (getLongUrl / resolve), hit or miss
+    public void recordResolve(long nanos) {
+        resolve[stripe()].record(nanos);
+    }
+
+    public void recordIdsAllocated(long count) {
+        idsAllocated.add(count);
+    }
+
+    // Merged copies of the stripes: later recordings do not show up in them
+    public LatencyHistogram shortenLatency() {
+        return merge(shorten);
+    }
+
+    public LatencyHistogram resolveLatency() {
+        return merge(resolve);
+    }
+
+    public long idsAllocated() {
+        return idsAllocated.sum();
+    }
+
+    public CacheStats cacheStats() {
+        return cacheStats.get();
+    }
+
+    public int cacheSize() {
+        return cacheSize.getAsInt();
+    }
+
+    public long storeSize() {
+        return storeSize.getAsLong();
+    }
+
+    // Everything since the metrics were created, rates averaged over that time
+    public String format() {
+        return format(null, capture());
+    }
+
+    // Writes format()-style text to sink every interval, covering that interval only
+    public synchronized void startDump(Duration interval, Consumer<String> sink) {
+        if (dumper != null) {
+            throw new IllegalStateException("Metrics dump already running");
+        }
+        long millis = Math.max(1, interval.toMillis());
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "shortener-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Sample[] previous = {capture()};
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                Sample current = capture();
+                sink.accept(format(previous[0], current));
+                previous[0] = current;
+            } catch (RuntimeException e) {
+                System.err.println("Metrics dump failed: " + e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // Stops the periodic dump
+    @Override
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+        }
+    }
+
+    private Sample capture() {
+        return new Sample(System.nanoTime(), shortenLatency(), resolveLatency(), idsAllocated(), cacheStats(),
+                cacheSize(), storeSize());
+    }
+
+    // Rates and percentiles over (since, now], or over the whole lifetime when since is null
+    private String format(Sample since, Sample now) {
+        double seconds = (now.nanos - (since != null ? since.nanos : startNanos)) / 1e9;
+        LatencyHistogram shortens = since != null ? now.shorten.since(since.shorten) : now.shorten;
+        LatencyHistogram resolves = since != null ? now.resolve.since(since.resolve) : now.resolve;
+        long ids = now.ids - (since != null ? since.ids : 0);
+        return String.format("shortener uptime=%.1fs window=%.1fs%n", (now.nanos - startNanos) / 1e9, seconds)
+                + line("shorten", shortens, seconds)
+                + line("resolve", resolves, seconds)
+                + String.format("  cache    %s size=%d%n", now.cache, now.cacheSize)
+                + String.format("  store    size=%d%n", now.storeSize)
+                + String.format("  ids      allocated=%d rate=%.1f/s%n", now.ids, ids / seconds);
+    }
+
+    private static String line(String name, LatencyHistogram latency, double seconds) {
+        long count = latency.count();
+        return String.format("  %-8s count=%d rate=%.1f/s p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                name, count, count / seconds, latency.percentile(0.5) / 1e3, latency.percentile(0.99) / 1e3,
+                latency.percentile(0.999) / 1e3, latency.max() / 1e3);
+    }
+
+    private int stripe() {
+        return (int) Fingerprint.mix(Thread.currentThread().getId()) & stripeMask;
+    }
+
+    private static LatencyHistogram merge(LatencyHistogram[] stripes) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram stripe : stripes) {
+            merged.add(stripe);
+        }
+        return merged;
+    }
+
+    private static final class Sample {
+        final long nanos;
+        final LatencyHistogram shorten;
+        final LatencyHistogram resolve;
+        final long ids;
+        final CacheStats cache;
+        final int cacheSize;
+        final long storeSize;
+
+        Sample(long nanos, LatencyHistogram shorten, LatencyHistogram resolve, long ids, CacheStats cache,
+               int cacheSize, long storeSize) {
+            this.nanos = nanos;
+            this.shorten = shorten;
+            this.resolve = resolve;
+            this.ids = ids;
+            this.cache = cache;
+            this.cacheSize = cacheSize;
+            this.storeSize = storeSize;
+        }
+    }
+}
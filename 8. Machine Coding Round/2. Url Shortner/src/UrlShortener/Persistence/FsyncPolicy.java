@@ -0,0 +1,52 @@
+package UrlShortener.Persistence;
+
+import java.time.Duration;
+
+// When the write-ahead log calls fsync
+public final class FsyncPolicy {
+    public enum Mode { PER_WRITE, BATCHED, INTERVAL }
+
+    private final Mode mode;
+    private final int batchSize;
+    private final Duration interval;
+
+    private FsyncPolicy(Mode mode, int batchSize, Duration interval) {
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.interval = interval;
+    }
+
+    // Every sync() is durable. Concurrent writers share one fsync (group commit).
+    public static FsyncPolicy perWrite() {
+        return new FsyncPolicy(Mode.PER_WRITE, 1, null);
+    }
+
+    // fsync once batchSize records are pending; up to batchSize acknowledged records can be lost
+    public static FsyncPolicy batched(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return new FsyncPolicy(Mode.BATCHED, batchSize, null);
+    }
+
+    // fsync from a background thread; up to one interval of acknowledged records can be lost
+    public static FsyncPolicy interval(Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        return new FsyncPolicy(Mode.INTERVAL, Integer.MAX_VALUE, interval);
+    }
+
+    public Mode mode() { return mode; }
+    public int batchSize() { return batchSize; }
+    public Duration interval() { return interval; }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case BATCHED: return "batched(" + batchSize + ")";
+            case INTERVAL: return "interval(" + interval.toMillis() + "ms)";
+            default: return "perWrite";
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package UrlShortener.Persistence;
+
+import java.io.DataInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import UrlShortener.Codec.Base62;
+import UrlShortener.Store.UrlStore;
+
+// Export / import of every mapping of a store, for backups and migrations between stores.
+//   BINARY - [long magic][int version][long size hint] ([long id][int length][UTF-8 bytes])*
+//            [long -1][long count][int crc32], the snapshot layout plus a size hint up front
+//   NDJSON - one {"id":..,"key":"..","url":".."} object per line, for tools outside Java
+// Both directions work on one BUFFER-sized byte block: export encodes records straight into it
+// from store.forEach, restore parses records out of it and hands the store putAll batches of
+// BATCH mappings. Heap use is the block plus one batch, whatever the number of mappings; there is
+// no per-byte stream call on the way (the CRC is updated a block at a time).
+public final class MappingDump {
+    private static final long MAGIC = 0x55524c44554d5031L; // "URLDUMP1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int BUFFER = 1 << 20;
+    private static final int BATCH = 4096;
+    private static final byte[] ID_FIELD = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_FIELD = ",\"key\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] URL_FIELD = "\",\"url\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_END = "\"}\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    public enum Format { BINARY, NDJSON }
+
+    private MappingDump() {
+    }
+
+    // Writes every mapping of store to file (through a temp file, fsynced and renamed) and returns
+    // the number written
+    public static long export(UrlStore store, Path file, Format format) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            long count;
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                count = write(store, out, format);
+                out.getFD().sync();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Cannot export to " + file, e);
+        }
+    }
+
+    // Same into any stream (a socket, a gzip stream); flushes but does not close out
+    public static long export(UrlStore store, OutputStream out, Format format) {
+        try {
+            return write(store, out, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export failed", e);
+        }
+    }
+
+    // Loads a dump of either format into store and returns the highest id in it (-1 when empty),
+    // from which the service's firstId continues
+    public static long restore(Path file, UrlStore store) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return restore(in, store);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot restore " + file, e);
+        }
+    }
+
+    // Same from any stream; the format is recognized from the first byte. Does not close in.
+    public static long restore(InputStream in, UrlStore store) {
+        try {
+            Input input = new Input(in);
+            boolean binary = input.ensure(1) && input.buffer[input.position] == (byte) (MAGIC >>> 56);
+            return binary ? restoreBinary(input, store) : restoreNdjson(input, store);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Restore failed", e);
+        }
+    }
+
+    // Number of mappings the store held when a binary dump was started, for sizing the target
+    // store (e.g. new InMemoryUrlStore((int) sizeHint(file))); -1 for NDJSON dumps
+    public static long sizeHint(Path file) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (Files.size(file) < HEADER_BYTES || in.readLong() != MAGIC || in.readInt() != VERSION) {
+                return -1;
+            }
+            return in.readLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file, e);
+        }
+    }
+
+    private static long write(UrlStore store, OutputStream target, Format format) throws IOException {
+        Output out = new Output(target, format == Format.BINARY);
+        if (format == Format.BINARY) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(store.size());
+        }
+        long[] count = {0};
+        IOException[] failure = new IOException[1];
+        store.forEach((id, longUrl) -> {
+            if (failure[0] != null) {
+                return;
+            }
+            try {
+                byte[] utf8 = longUrl.getBytes(StandardCharsets.UTF_8);
+                if (format == Format.BINARY) {
+                    out.writeLong(id);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                } else {
+                    writeLine(out, id, utf8);
+                }
+                count[0]++;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        if (format == Format.BINARY) {
+            out.writeLong(-1);
+            out.writeLong(count[0]);
+            out.writeInt((int) out.checksum());
+        }
+        out.flush();
+        return count[0];
+    }
+
+    // {"id":1,"key":"1","url":"..."} with ", \ and control characters escaped. Multi-byte UTF-8
+    // sequences contain no byte below 0x80, so the URL is escaped byte by byte.
+    private static void writeLine(Output out, long id, byte[] utf8) throws IOException {
+        long key = id;
+        out.ensure(ID_FIELD.length + 20 + KEY_FIELD.length + Base62.MAX_LENGTH + URL_FIELD.length);
+        out.write(ID_FIELD);
+        int digits = 1;
+        for (long rest = id / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = out.position + digits - 1; i >= out.position; i--) {
+            out.buffer[i] = (byte) ('0' + id % 10);
+            id /= 10;
+        }
+        out.position += digits;
+        out.write(KEY_FIELD);
+        out.position += Base62.encode(key, out.buffer, out.position);
+        out.write(URL_FIELD);
+        int from = 0;
+        for (int i = 0; i < utf8.length; i++) {
+            byte b = utf8[i];
+            if (b == '"' || b == '\\' || (b >= 0 && b < 0x20)) {
+                out.write(utf8, from, i - from);
+                out.ensure(6);
+                out.buffer[out.position++] = '\\';
+                if (b == '"' || b == '\\') {
+                    out.buffer[out.position++] = b;
+                } else {
+                    out.buffer[out.position++] = 'u';
+                    out.buffer[out.position++] = '0';
+                    out.buffer[out.position++] = '0';
+                    out.buffer[out.position++] = HEX[b >>> 4];
+                    out.buffer[out.position++] = HEX[b & 0xF];
+                }
+                from = i + 1;
+            }
+        }
+        out.write(utf8, from, utf8.length - from);
+        out.write(LINE_END);
+    }
+
+    private static long restoreBinary(Input in, UrlStore store) throws IOException {
+        in.checksummed = true;
+        if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a mapping dump");
+        }
+        in.readLong(); // size hint
+        Batch batch = new Batch(store);
+        long id;
+        while ((id = in.readLong()) != -1) {
+            int length = in.readInt();
+            if (length < 0 || !in.ensure(length)) {
+                throw new IOException("Truncated mapping dump");
+            }
+            batch.add(id, new String(in.buffer, in.position, length, StandardCharsets.UTF_8));
+            in.position += length;
+        }
+        batch.flush();
+        if (in.readLong() != batch.count) {
+            throw new IOException("Dump record count mismatch");
+        }
+        int actual = (int) in.checksum();
+        if (in.readInt() != actual) {
+            throw new IOException("Dump checksum mismatch");
+        }
+        return batch.maxId;
+    }
+
+    private static long restoreNdjson(Input in, UrlStore store) throws IOException {
+        Batch batch = new Batch(store);
+        String[] url = new String[1];
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            url[0] = null;
+            long id = parseLine(line, url);
+            if (id < 0 || url[0] == null || url[0].isEmpty()) {
+                throw new IOException("Line " + lineNumber + " is not a {\"id\":..,\"url\":\"..\"} mapping");
+            }
+            batch.add(id, url[0]);
+        }
+        batch.flush();
+        return batch.maxId;
+    }
+
+    // Reads a flat JSON object: returns its "id" (-1 when missing or malformed) and puts its "url"
+    // into url[0]. Other fields ("key") are skipped.
+    private static long parseLine(String line, String[] url) {
+        int i = skipSpaces(line, 0);
+        if (i >= line.length() || line.charAt(i) != '{') {
+            return -1;
+        }
+        long id = -1;
+        i = skipSpaces(line, i + 1);
+        while (i < line.length() && line.charAt(i) != '}') {
+            int nameStart = i + 1;
+            i = readString(line, i, null);
+            int nameLength = i - 1 - nameStart;
+            i = skipSpaces(line, i);
+            if (i < 0 || i >= line.length() || line.charAt(i) != ':') {
+                return -1;
+            }
+            i = skipSpaces(line, i + 1);
+            if (i < line.length() && line.charAt(i) == '"') {
+                i = readString(line, i, nameLength == 3 && line.startsWith("url", nameStart) ? url : null);
+            } else {
+                int start = i;
+                while (i < line.length() && line.charAt(i) != ',' && line.charAt(i) != '}'
+                        && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                if (nameLength == 2 && line.startsWith("id", nameStart)) {
+                    try {
+                        id = Long.parseLong(line, start, i, 10);
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            }
+            i = skipSpaces(line, i);
+            if (i < 0 || i >= line.length()) {
+                return -1;
+            }
+            if (line.charAt(i) == ',') {
+                i = skipSpaces(line, i + 1);
+            }
+        }
+        return i < line.length() ? id : -1;
+    }
+
+    // Puts the JSON string starting at the quote at i into value[0] (skips it when value is null);
+    // returns the index after the closing quote, or -1 when malformed. Strings without escapes are
+    // one substring.
+    private static int readString(String line, int i, String[] value) {
+        if (i < 0 || i >= line.length() || line.charAt(i) != '"') {
+            return -1;
+        }
+        int start = i + 1;
+        int end = start;
+        while (end < line.length() && line.charAt(end) != '"' && line.charAt(end) != '\\') {
+            end++;
+        }
+        if (end < line.length() && line.charAt(end) == '"') {
+            if (value != null) {
+                value[0] = line.substring(start, end);
+            }
+            return end + 1;
+        }
+        StringBuilder unescaped = new StringBuilder(line.length()).append(line, start, end);
+        for (i = end; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (value != null) {
+                    value[0] = unescaped.toString();
+                }
+                return i + 1;
+            }
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+            if (++i >= line.length()) {
+                return -1;
+            }
+            switch (line.charAt(i)) {
+                case '"': unescaped.append('"'); break;
+                case '\\': unescaped.append('\\'); break;
+                case '/': unescaped.append('/'); break;
+                case 'b': unescaped.append('\b'); break;
+                case 'f': unescaped.append('\f'); break;
+                case 'n': unescaped.append('\n'); break;
+                case 'r': unescaped.append('\r'); break;
+                case 't': unescaped.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= line.length()) {
+                        return -1;
+                    }
+                    try {
+                        unescaped.append((char) Integer.parseInt(line, i + 1, i + 5, 16));
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String line, int i) {
+        while (i >= 0 && i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Write block; the CRC (binary format) covers everything written before checksum()
+    private static final class Output {
+        final OutputStream target;
+        final CRC32 crc;
+        final byte[] buffer = new byte[BUFFER];
+        int position;
+        int checksumFrom;
+
+        Output(OutputStream target, boolean checksummed) {
+            this.target = target;
+            this.crc = checksummed ? new CRC32() : null;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (position + bytes > buffer.length) {
+                drain();
+            }
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void write(byte[] bytes) throws IOException {
+            write(bytes, 0, bytes.length);
+        }
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - position) {
+                drain();
+                if (length > buffer.length) { // a URL bigger than the block goes out directly
+                    if (crc != null) {
+                        crc.update(bytes, offset, length);
+                    }
+                    target.write(bytes, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        long checksum() {
+            crc.update(buffer, checksumFrom, position - checksumFrom);
+            checksumFrom = position;
+            return crc.getValue();
+        }
+
+        void flush() throws IOException {
+            drain();
+            target.flush();
+        }
+
+        private void drain() throws IOException {
+            if (crc != null) {
+                crc.update(buffer, checksumFrom, position - checksumFrom);
+            }
+            target.write(buffer, 0, position);
+            position = 0;
+            checksumFrom = 0;
+        }
+    }
+
+    // Read block with the unread bytes at [position, limit); the CRC (binary format) covers every
+    // byte consumed before checksum()
+    private static final class Input {
+        final InputStream source;
+        final CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER];
+        int position;
+        int limit;
+        int checksumFrom;
+        boolean checksummed;
+        boolean eof;
+
+        Input(InputStream source) {
+            this.source = source;
+        }
+
+        // Whether at least bytes unread bytes are (now) in the block; reads more and grows the
+        // block as needed
+        boolean ensure(int bytes) throws IOException {
+            if (limit - position >= bytes) {
+                return true;
+            }
+            if (checksummed) {
+                crc.update(buffer, checksumFrom, position - checksumFrom);
+            }
+            if (bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(bytes, buffer.length * 2));
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            checksumFrom = 0;
+            while (limit < bytes && !eof) {
+                int read = source.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    limit += read;
+                }
+            }
+            return limit >= bytes;
+        }
+
+        long readLong() throws IOException {
+            if (!ensure(8)) {
+                throw new IOException("Truncated mapping dump");
+            }
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        int readInt() throws IOException {
+            if (!ensure(4)) {
+                throw new IOException("Truncated mapping dump");
+            }
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = value << 8 | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long checksum() {
+            crc.update(buffer, checksumFrom, position - checksumFrom);
+            checksumFrom = position;
+            return crc.getValue();
+        }
+
+        // Next line without its terminator, null at the end of the input
+        String readLine() throws IOException {
+            int scanned = 0;
+            while (true) {
+                for (int i = position + scanned; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        int end = i > position && buffer[i - 1] == '\r' ? i - 1 : i;
+                        String line = new String(buffer, position, end - position, StandardCharsets.UTF_8);
+                        position = i + 1;
+                        return line;
+                    }
+                }
+                scanned = limit - position;
+                if (!ensure(scanned + 1)) {
+                    if (scanned == 0) {
+                        return null;
+                    }
+                    String line = new String(buffer, position, scanned, StandardCharsets.UTF_8);
+                    position = limit;
+                    return line;
+                }
+            }
+        }
+    }
+
+    // Fixed-size putAll batch, reused for the whole restore
+    private static final class Batch {
+        final UrlStore store;
+        final long[] ids = new long[BATCH];
+        final List<String> longUrls = new ArrayList<>(BATCH);
+        long count;
+        long maxId = -1;
+
+        Batch(UrlStore store) {
+            this.store = store;
+        }
+
+        void add(long id, String longUrl) {
+            ids[longUrls.size()] = id;
+            longUrls.add(longUrl);
+            count++;
+            maxId = Math.max(maxId, id);
+            if (longUrls.size() == BATCH) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!longUrls.isEmpty()) {
+                store.putAll(ids, longUrls);
+                longUrls.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package UrlShortener.Persistence;
+
+import java.io.Closeable;
+
+// Where the service records every new mapping so it can be rebuilt after a restart
+public interface MappingJournal extends Closeable {
+    void append(long id, String longUrl);
+
+    // Makes everything appended so far durable, as far as the journal's policy promises
+    void sync();
+}
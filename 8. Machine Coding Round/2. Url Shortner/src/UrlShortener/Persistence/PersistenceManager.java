@@ -0,0 +1,125 @@
+package UrlShortener.Persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import UrlShortener.Store.UrlStore;
+
+// Ties the write-ahead log and the snapshots of one data directory together.
+// Startup: load the newest snapshot, replay the WAL segments it does not cover, then append to a new segment.
+// Snapshot: roll the WAL, dump the store, then delete the segments and snapshots it replaces.
+public class PersistenceManager implements Closeable {
+    private final Path directory;
+    private final WriteAheadLog wal;
+    private final long recoveredMaxId;
+    private final long recoveryMillis;
+    private ScheduledExecutorService snapshotter;
+
+    private PersistenceManager(Path directory, FsyncPolicy policy, UrlStore store) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long maxId = 0;
+        long fromSegment = 0;
+        List<Long> snapshots = Snapshots.list(directory);
+        if (!snapshots.isEmpty()) {
+            fromSegment = snapshots.get(snapshots.size() - 1);
+            maxId = Snapshots.load(Snapshots.path(directory, fromSegment), store::put);
+        }
+        maxId = Math.max(maxId, WriteAheadLog.replay(directory, fromSegment, store::put));
+        this.recoveredMaxId = maxId;
+        this.recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+        this.wal = new WriteAheadLog(directory, policy);
+    }
+
+    // Recovers store from directory and opens the log for new writes
+    public static PersistenceManager open(Path directory, FsyncPolicy policy, UrlStore store) {
+        try {
+            return new PersistenceManager(directory, policy, store);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Recovery from " + directory + " failed", e);
+        }
+    }
+
+    public MappingJournal journal() {
+        return wal;
+    }
+
+    // Highest id found during recovery; the service's counter must start after it
+    public long recoveredMaxId() {
+        return recoveredMaxId;
+    }
+
+    public long recoveryMillis() {
+        return recoveryMillis;
+    }
+
+    public synchronized Path snapshot(UrlStore store) {
+        try {
+            long segment = wal.roll();
+            Path written = Snapshots.write(directory, segment, store);
+            wal.deleteSegmentsBefore(segment);
+            for (long older : Snapshots.list(directory)) {
+                if (older < segment) {
+                    Files.deleteIfExists(Snapshots.path(directory, older));
+                }
+            }
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot failed", e);
+        }
+    }
+
+    public synchronized void scheduleSnapshots(UrlStore store, Duration period) {
+        if (snapshotter == null) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long millis = period.toMillis();
+        snapshotter.scheduleAtFixedRate(() -> {
+            try {
+                snapshot(store);
+            } catch (RuntimeException e) {
+                System.err.println("Periodic snapshot failed: " + e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // A running snapshot is allowed to finish: interrupting it mid-roll would close the WAL channel
+    // and lose the records it batches
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = snapshotter;
+            if (running != null) {
+                running.shutdown(); // pending periodic runs are dropped
+            }
+        }
+        if (running != null) {
+            boolean interrupted = false;
+            while (!running.isTerminated()) {
+                try {
+                    running.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true; // the snapshot must finish either way
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+}
@@ -0,0 +1,126 @@
+package UrlShortener.Persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import UrlShortener.Store.MappingConsumer;
+import UrlShortener.Store.UrlStore;
+
+// Compact full copies of a store: snapshot-<first WAL segment to replay>.snap
+// [long magic][int version][long walSegment] ([long id][int length][UTF-8 bytes])* [long -1][long count][int crc32]
+// Written to a temp file, fsynced and renamed, so a crash never leaves a half-written snapshot.
+final class Snapshots {
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final long MAGIC = 0x534e415053484f54L; // "SNAPSHOT"
+    private static final int VERSION = 1;
+    private static final int BUFFER = 1 << 20;
+
+    private Snapshots() {
+    }
+
+    static Path write(Path directory, long walSegment, UrlStore store) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, walSegment, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long[] count = new long[1];
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(file, BUFFER);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(walSegment);
+            IOException[] failure = new IOException[1];
+            store.forEach((id, longUrl) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    byte[] utf8 = longUrl.getBytes(StandardCharsets.UTF_8);
+                    out.writeLong(id);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                    count[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.writeLong(-1);
+            out.writeLong(count[0]);
+            new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+            buffered.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    // Streams a snapshot into consumer and returns the highest id in it
+    static long load(Path snapshot, MappingConsumer consumer) throws IOException {
+        long maxId = 0;
+        try (InputStream file = Files.newInputStream(snapshot)) {
+            BufferedInputStream buffered = new BufferedInputStream(file, BUFFER);
+            CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a snapshot: " + snapshot);
+            }
+            in.readLong(); // wal segment, already known from the file name
+            long count = 0;
+            byte[] scratch = new byte[256];
+            long id;
+            while ((id = in.readLong()) != -1) {
+                int length = in.readInt();
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                in.readFully(scratch, 0, length);
+                consumer.accept(id, new String(scratch, 0, length, StandardCharsets.UTF_8));
+                maxId = Math.max(maxId, id);
+                count++;
+            }
+            if (in.readLong() != count) {
+                throw new IOException("Snapshot record count mismatch: " + snapshot);
+            }
+            int actual = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(buffered).readInt() != actual) {
+                throw new IOException("Snapshot checksum mismatch: " + snapshot);
+            }
+        }
+        return maxId;
+    }
+
+    static List<Long> list(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()))));
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    static Path path(Path directory, long walSegment) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, walSegment, SUFFIX));
+    }
+}
@@ -0,0 +1,316 @@
+package UrlShortener.Persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import UrlShortener.Store.MappingConsumer;
+
+// Append-only log of shorten operations, split into numbered segments (wal-<segment>.log).
+// Record: [int payload length][int crc32 of payload][long id][UTF-8 url bytes]
+// Appends go into a buffer under a short lock; sync() drains the buffer and fsyncs outside it,
+// so writers that arrive while an fsync is running are covered by the next one (group commit).
+public class WriteAheadLog implements MappingJournal {
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+
+    private FileChannel channel;
+    private long segment;
+    private volatile long appended; // records appended since open
+    private volatile long durable;  // records known to be on disk
+    private volatile boolean closed;
+
+    // Opens a fresh segment after every existing one, so a torn tail is never appended to
+    public WriteAheadLog(Path directory, FsyncPolicy policy) {
+        this.directory = directory;
+        this.policy = policy;
+        try {
+            Files.createDirectories(directory);
+            List<Long> existing = segments(directory);
+            this.segment = existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1;
+            this.channel = openSegment(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + directory, e);
+        }
+        if (policy.mode() == FsyncPolicy.Mode.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = policy.interval().toMillis();
+            flusher.scheduleAtFixedRate(this::forceQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public void append(long id, String longUrl) {
+        byte[] utf8 = longUrl.getBytes(StandardCharsets.UTF_8);
+        appendLock.lock();
+        try {
+            ensureOpen();
+            int payload = 8 + utf8.length;
+            if (buffer.remaining() < HEADER_BYTES + payload) {
+                drainBuffer();
+            }
+            ByteBuffer target = buffer.remaining() >= HEADER_BYTES + payload
+                    ? buffer : ByteBuffer.allocate(HEADER_BYTES + payload); // oversized record
+            int start = target.position();
+            target.putInt(payload).putInt(0).putLong(id).put(utf8);
+            ByteBuffer body = target.duplicate();
+            body.position(start + HEADER_BYTES).limit(target.position());
+            crc.reset();
+            crc.update(body);
+            target.putInt(start + 4, (int) crc.getValue());
+            if (target != buffer) {
+                target.flip();
+                writeFully(target);
+            }
+            appended++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void sync() {
+        long target = appended;
+        if (target - durable >= policy.batchSize()) {
+            force(target);
+        }
+    }
+
+    // Drains and fsyncs unconditionally, whatever the policy
+    public void force() {
+        force(appended);
+    }
+
+    // Starts a new segment and returns its number; every later append lands in it or after it
+    public long roll() {
+        synchronized (syncLock) {
+            appendLock.lock();
+            try {
+                ensureOpen();
+                long upTo = appended;
+                drainBuffer();
+                channel.force(false);
+                channel.close();
+                durable = upTo;
+                segment++;
+                channel = openSegment(segment);
+                return segment;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+
+    // Deletes segments older than the given one (already covered by a snapshot)
+    public void deleteSegmentsBefore(long keep) {
+        try {
+            for (long old : segments(directory)) {
+                if (old < keep) {
+                    Files.deleteIfExists(segmentPath(directory, old));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long appendedRecords() {
+        return appended;
+    }
+
+    public long durableRecords() {
+        return durable;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (syncLock) {
+            appendLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                drainBuffer();
+                channel.force(false);
+                channel.close();
+                durable = appended;
+                closed = true;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+
+    // Replays segments numbered fromSegment and later in order. A torn or corrupt record ends
+    // its segment (the file is truncated there). Returns the highest id seen, or 0.
+    public static long replay(Path directory, long fromSegment, MappingConsumer consumer) throws IOException {
+        long maxId = 0;
+        if (!Files.isDirectory(directory)) {
+            return maxId;
+        }
+        for (long number : segments(directory)) {
+            if (number >= fromSegment) {
+                maxId = Math.max(maxId, replaySegment(segmentPath(directory, number), consumer));
+            }
+        }
+        return maxId;
+    }
+
+    private static long replaySegment(Path path, MappingConsumer consumer) throws IOException {
+        long maxId = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            long position = 0;
+            long size = in.size();
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(in, header, position);
+                header.flip();
+                int payload = header.getInt();
+                int expected = header.getInt();
+                if (payload < 8 || position + HEADER_BYTES + payload > size) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(payload);
+                readFully(in, body, position + HEADER_BYTES);
+                crc.reset();
+                crc.update(body.array(), 0, payload);
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+                body.flip();
+                long id = body.getLong();
+                consumer.accept(id, new String(body.array(), 8, payload - 8, StandardCharsets.UTF_8));
+                maxId = Math.max(maxId, id);
+                position += HEADER_BYTES + payload;
+            }
+            if (position < size) {
+                in.truncate(position); // drop the torn tail left by a crash
+            }
+        }
+        return maxId;
+    }
+
+    static List<Long> segments(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()))));
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, number, SUFFIX));
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void force(long target) {
+        if (durable >= target) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable >= target || closed) {
+                return; // someone else's fsync already covered us
+            }
+            FileChannel current;
+            long upTo;
+            appendLock.lock();
+            try {
+                upTo = appended;
+                drainBuffer();
+                current = channel;
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                current.force(false); // appends continue into the buffer meanwhile
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            durable = upTo;
+        }
+    }
+
+    private void forceQuietly() {
+        try {
+            force(appended);
+        } catch (RuntimeException e) {
+            System.err.println("WAL flush failed: " + e);
+        }
+    }
+
+    // Caller holds appendLock
+    private void drainBuffer() {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = in.read(target, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+            position += read;
+        }
+    }
+}
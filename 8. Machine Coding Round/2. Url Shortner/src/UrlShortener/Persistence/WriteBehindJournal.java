@@ -0,0 +1,272 @@
+package UrlShortener.Persistence;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import UrlShortener.Metrics.LatencyHistogram;
+
+// Write-behind wrapper around another journal: append() queues the mapping in memory and
+// returns, sync() is a no-op, and a writer thread hands everything queued since its last pass to
+// the target as one batch with one target.sync() - many short links coalesced into one write and
+// one fsync. Give the target FsyncPolicy.perWrite() so every batch is durable.
+//
+// Queue memory is bounded by maxQueuedBytes (records in flight count until the target has them);
+// a full queue blocks append() until the writer catches up. close() drains the queue before
+// closing the target. A failed flush stops the journal: later appends throw, so nothing more
+// is acknowledged that could not be persisted.
+//
+// Acknowledged mappings still queued are lost in a crash. Their ids may then be handed out again
+// after recovery, unless ids come from a LeasedIdAllocator that starts on a fresh lease after every
+// restart (the constructor without highestUsedId): the lost ids sit above the recovered maximum,
+// inside the last logged lease, so resuming that lease would reissue them.
+public class WriteBehindJournal implements MappingJournal {
+    private static final int RECORD_OVERHEAD = 64; // queue slot + Pending object, beyond the URL itself
+
+    private final MappingJournal target;
+    private final long maxQueuedBytes;
+    private final int maxBatch;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Thread writer;
+
+    // guarded by lock
+    private long queuedBytes;
+    private long enqueued;
+    private long written;
+    private boolean closed;
+    private RuntimeException failure;
+
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LatencyHistogram persistLag = new LatencyHistogram();
+    private final LongAdder stalls = new LongAdder();
+    private final LongAdder stalledNanos = new LongAdder();
+
+    public WriteBehindJournal(MappingJournal target) {
+        this(target, 64L << 20, 4096);
+    }
+
+    public WriteBehindJournal(MappingJournal target, long maxQueuedBytes, int maxBatch) {
+        if (maxQueuedBytes <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("maxQueuedBytes and maxBatch must be positive");
+        }
+        this.target = target;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::writeLoop, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void append(long id, String longUrl) {
+        long bytes = RECORD_OVERHEAD + longUrl.length();
+        lock.lock();
+        try {
+            checkUsable();
+            if (queuedBytes > 0 && queuedBytes + bytes > maxQueuedBytes) {
+                long start = System.nanoTime();
+                stalls.increment();
+                while (queuedBytes > 0 && queuedBytes + bytes > maxQueuedBytes) {
+                    notFull.awaitUninterruptibly();
+                    checkUsable();
+                }
+                stalledNanos.add(System.nanoTime() - start);
+            }
+            queue.add(new Pending(id, longUrl, bytes, System.nanoTime()));
+            queuedBytes += bytes;
+            enqueued++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Acknowledged from memory: durability is the writer's job
+    @Override
+    public void sync() {
+    }
+
+    // Blocks until everything appended so far has been handed to the target and synced
+    public void flush() {
+        lock.lock();
+        try {
+            long target = enqueued;
+            while (written < target) {
+                if (failure != null) {
+                    throw new IllegalStateException("Write-behind journal failed", failure);
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Records accepted but not yet synced to the target (queued + in the current batch)
+    public long queueDepth() {
+        lock.lock();
+        try {
+            return enqueued - written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long queuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long writtenRecords() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Nanoseconds per batch: target.append for every record plus one target.sync
+    public LatencyHistogram flushLatency() {
+        return flushLatency;
+    }
+
+    // Nanoseconds from append() until the record's batch was synced
+    public LatencyHistogram persistLag() {
+        return persistLag;
+    }
+
+    // Appends that had to wait for queue space, and how long they waited in total
+    public long backpressureStalls() {
+        return stalls.sum();
+    }
+
+    public long backpressureNanos() {
+        return stalledNanos.sum();
+    }
+
+    // Drains the queue into the target, then closes the target
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true; // the drain must finish either way
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+        if (failure != null) {
+            throw new IOException("Write-behind journal lost " + queueDepth() + " records", failure);
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Pending> batch;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (queue.isEmpty()) {
+                    return; // closed and drained
+                }
+                batch = new ArrayList<>(Math.min(queue.size(), maxBatch));
+                while (batch.size() < maxBatch && !queue.isEmpty()) {
+                    batch.add(queue.poll());
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            long start = System.nanoTime();
+            try {
+                for (Pending pending : batch) {
+                    target.append(pending.id, pending.longUrl);
+                }
+                target.sync();
+            } catch (Throwable e) { // an Error too: flush() and close() wait on failure
+                System.err.println("Write-behind flush failed: " + e);
+                lock.lock();
+                try {
+                    failure = e instanceof RuntimeException
+                            ? (RuntimeException) e
+                            : new IllegalStateException("Write-behind writer died", e);
+                    notFull.signalAll();
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                return;
+            }
+            long end = System.nanoTime();
+            flushLatency.record(end - start);
+            long bytes = 0;
+            for (Pending pending : batch) {
+                persistLag.record(end - pending.enqueuedNanos);
+                bytes += pending.bytes;
+            }
+
+            lock.lock();
+            try {
+                written += batch.size();
+                queuedBytes -= bytes;
+                notFull.signalAll();
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Caller holds lock
+    private void checkUsable() {
+        if (failure != null) {
+            throw new IllegalStateException("Write-behind journal failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-behind journal is closed");
+        }
+    }
+
+    private static final class Pending {
+        final long id;
+        final String longUrl;
+        final long bytes;
+        final long enqueuedNanos;
+
+        Pending(long id, String longUrl, long bytes, long enqueuedNanos) {
+            this.id = id;
+            this.longUrl = longUrl;
+            this.bytes = bytes;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package UrlShortener.RateLimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Per-client token buckets (permitsPerSecond refill, burst capacity) for millions of clients in
+// fixed memory: 16 bytes per slot, 2 to 4 slots per client at maxClients (a power of two).
+//
+// Slots are [client id][state] pairs in stripes of AtomicLongArray, picked by the high bits of
+// the id's hash; state packs the refill time (millis since construction, 40 bits) and the tokens
+// (1/1024ths, 24 bits), so a bucket is updated with one CAS and tryAcquire takes no lock. A client
+// lives in one of the PROBES slots after its home slot. Nothing ever removes a bucket: a new client
+// takes an empty slot, else the first idle one (a full bucket is the same as no bucket), else the
+// fullest one, which is then counted as an eviction. Requests racing with a slot changing hands
+// may be charged to the wrong bucket, a request or two at most. Refill rounds down to whole
+// 1/1024ths, so an allowed request may cost up to 1/1024 of a token more than it should.
+public class ClientRateLimiter {
+    private static final long EMPTY = -1;
+    private static final int PROBES = 8;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final int SCALE = 1024; // token fractions
+    private static final int MAX_STRIPE_SLOTS = 1 << 20;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeShift;
+    private final int slotMask;
+    private final long burst;         // in 1/SCALE tokens
+    private final double refillPerMilli;  // in 1/SCALE tokens
+    private final LongSupplier clock;
+    private final long epoch;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ClientRateLimiter(double permitsPerSecond, int burst, int maxClients) {
+        this(permitsPerSecond, burst, maxClients, System::currentTimeMillis);
+    }
+
+    public ClientRateLimiter(double permitsPerSecond, int burst, int maxClients, LongSupplier clock) {
+        if (!(permitsPerSecond > 0) || burst < 1 || (long) burst * SCALE > TOKEN_MASK || maxClients < 1) {
+            throw new IllegalArgumentException("Need permitsPerSecond > 0, burst in [1, "
+                    + TOKEN_MASK / SCALE + "] and maxClients > 0");
+        }
+        long slots = Long.highestOneBit(Math.max(2L * maxClients, PROBES) - 1) << 1;
+        int stripeCount = (int) Math.max(1, slots / MAX_STRIPE_SLOTS);
+        int stripeSlots = (int) (slots / stripeCount);
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(2 * stripeSlots);
+            for (int slot = 0; slot < stripeSlots; slot++) {
+                stripes[i].set(2 * slot, EMPTY);
+            }
+        }
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+        this.slotMask = stripeSlots - 1;
+        this.burst = (long) burst * SCALE;
+        this.refillPerMilli = permitsPerSecond * SCALE / 1000;
+        this.clock = clock;
+        this.epoch = clock.getAsLong();
+    }
+
+    // Takes one token from the client's bucket; false (and nothing taken) when it is empty
+    public boolean tryAcquire(String client) {
+        return tryAcquire(Fingerprint.of(client) & Long.MAX_VALUE);
+    }
+
+    // clientId must be >= 0, e.g. an IPv4 address or a hashed API key
+    public boolean tryAcquire(long clientId) {
+        if (clientId < 0) {
+            throw new IllegalArgumentException("Negative client id: " + clientId);
+        }
+        long hash = Fingerprint.mix(clientId);
+        AtomicLongArray slots = stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+        int home = (int) hash & slotMask;
+        long now = Math.max(0, clock.getAsLong() - epoch);
+        retry:
+        while (true) {
+            int free = -1; // first empty or idle slot
+            int fullest = -1;
+            long fullestTokens = -1;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int index = 2 * ((home + probe) & slotMask);
+                long key = slots.get(index);
+                if (key == clientId) {
+                    long state = slots.get(index + 1);
+                    if (slots.get(index) != clientId) {
+                        continue retry; // taken over meanwhile
+                    }
+                    long tokens = refilled(state, now);
+                    if (tokens < SCALE) {
+                        rejected.increment();
+                        return false;
+                    }
+                    if (slots.compareAndSet(index + 1, state, pack(refillTime(state, now), tokens - SCALE))) {
+                        return true;
+                    }
+                    continue retry; // raced with another request of this client
+                }
+                if (key == EMPTY) {
+                    if (free < 0) {
+                        free = index;
+                    }
+                    break; // clients are never placed past an empty slot
+                }
+                long tokens = refilled(slots.get(index + 1), now);
+                if (tokens >= burst) {
+                    if (free < 0) {
+                        free = index;
+                    }
+                } else if (tokens > fullestTokens) {
+                    fullest = index;
+                    fullestTokens = tokens;
+                }
+            }
+            int index = free >= 0 ? free : fullest;
+            long key = slots.get(index);
+            if (key != clientId && slots.compareAndSet(index, key, clientId)) {
+                slots.set(index + 1, pack(now, burst - SCALE));
+                if (free < 0) {
+                    evictions.increment();
+                }
+                return true;
+            }
+        }
+    }
+
+    // Requests refused since construction
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    // Clients pushed out by a new client while their bucket was not yet full
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    // Slots held by some client, counted by a scan
+    public long clients() {
+        long clients = 0;
+        for (AtomicLongArray slots : stripes) {
+            for (int index = 0; index < slots.length(); index += 2) {
+                clients += slots.get(index) != EMPTY ? 1 : 0;
+            }
+        }
+        return clients;
+    }
+
+    private long refilled(long state, long now) {
+        long tokens = state & TOKEN_MASK;
+        long elapsed = now - (state >>> TOKEN_BITS);
+        if (elapsed <= 0 || tokens >= burst) {
+            return Math.min(tokens, burst);
+        }
+        return Math.min(burst, tokens + (long) (elapsed * refillPerMilli));
+    }
+
+    // Keeps the old refill time while less than one fraction has been earned, so slow refill
+    // rates still add up between frequent requests
+    private long refillTime(long state, long now) {
+        long last = state >>> TOKEN_BITS;
+        return (long) ((now - last) * refillPerMilli) > 0 ? now : last;
+    }
+
+    private static long pack(long time, long tokens) {
+        return time << TOKEN_BITS | tokens;
+    }
+}
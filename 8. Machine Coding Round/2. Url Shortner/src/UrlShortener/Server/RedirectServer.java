@@ -0,0 +1,555 @@
+package UrlShortener.Server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import UrlShortener.Codec.Base62;
+import UrlShortener.Codec.Fingerprint;
+import UrlShortener.RateLimit.ClientRateLimiter;
+import UrlShortener.Service.URLShortenerService;
+
+// Embedded HTTP/1.1 front end for the shortener:
+//   GET  /{key}     -> 302 (or 301) with Location, 404 if unknown
+//   POST /shorten   -> 201 with the short URL as text/plain; body is the long URL,
+//                      429 when the client (remote address) is over the optional shorten limit
+// One acceptor thread hands sockets round-robin to N selector loops. Each connection is
+// served on its loop with reusable buffers: keep-alive, pipelining, no framework. Creates are
+// the exception: shortenUrl may wait on a store or a per-write fsync, so it runs on a worker
+// pool and the loop keeps serving redirects. The connection stops reading until its create is
+// answered, which keeps pipelined responses in order and bounds the pool's queue by the number
+// of connections.
+public class RedirectServer implements Closeable {
+    private static final int MAX_REQUEST_BYTES = 16 * 1024;
+    private static final byte[] CRLF_CRLF = {'\r', '\n', '\r', '\n'};
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] SPACE = {' '};
+    private static final int SHORTEN_THREADS_PER_LOOP = 4;
+
+    private final URLShortenerService service;
+    private final int port;
+    private final int loopCount;
+    private final boolean permanentRedirects;
+    private final ClientRateLimiter shortenLimiter; // null: unlimited
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] loops;
+    private ExecutorService shortenWorkers;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public RedirectServer(URLShortenerService service, int port) {
+        this(service, port, Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    public RedirectServer(URLShortenerService service, int port, int loopCount, boolean permanentRedirects) {
+        this(service, port, loopCount, permanentRedirects, null);
+    }
+
+    public RedirectServer(URLShortenerService service, int port, int loopCount, boolean permanentRedirects,
+                          ClientRateLimiter shortenLimiter) {
+        this.service = service;
+        this.port = port;
+        this.loopCount = loopCount;
+        this.permanentRedirects = permanentRedirects;
+        this.shortenLimiter = shortenLimiter;
+    }
+
+    // Binds and starts the threads; returns the bound port (useful with port 0)
+    public int start() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), 1024);
+            running = true;
+            AtomicInteger workerCount = new AtomicInteger();
+            shortenWorkers = Executors.newFixedThreadPool(loopCount * SHORTEN_THREADS_PER_LOOP, r -> {
+                Thread thread = new Thread(r, "shorten-worker-" + workerCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            loops = new EventLoop[loopCount];
+            for (int i = 0; i < loopCount; i++) {
+                loops[i] = new EventLoop(Selector.open());
+                Thread thread = new Thread(loops[i], "redirect-loop-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            acceptor = new Thread(this::acceptLoop, "redirect-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start server on port " + port, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (loops != null) {
+            for (EventLoop loop : loops) {
+                loop.selector.wakeup();
+            }
+        }
+        if (shortenWorkers != null) {
+            shortenWorkers.shutdown();
+        }
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Accept failed: " + e);
+                }
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        final Queue<Runnable> completions = new ConcurrentLinkedQueue<>(); // from shorten workers
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        // Runs task on this loop's thread
+        void complete(Runnable task) {
+            completions.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel fresh;
+                    while ((fresh = pending.poll()) != null) {
+                        Connection connection = new Connection(fresh, this);
+                        connection.key = fresh.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Runnable completion;
+                    while ((completion = completions.poll()) != null) {
+                        completion.run();
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.onReadable(key);
+                            } else if (key.isWritable()) {
+                                connection.onWritable(key);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            connection.close(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Event loop failed: " + e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // shutting down anyway
+                }
+            }
+        }
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final EventLoop loop;
+        SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_REQUEST_BYTES);
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        boolean closeAfterWrite;
+        boolean awaitingShorten; // a create is on a worker: no reading, no further requests
+        long clientId = -1; // rate limiter key, resolved on the first POST
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        void onReadable(SelectionKey key) throws IOException {
+            if (channel.read(in) < 0) {
+                close(key);
+                return;
+            }
+            processRequests();
+            flush(key);
+        }
+
+        void onWritable(SelectionKey key) throws IOException {
+            flush(key);
+            if (key.isValid() && out.position() == 0 && in.position() > 0) {
+                processRequests(); // pipelined requests that arrived while we were blocked on writing
+                flush(key);
+            }
+        }
+
+        // Handles every complete request in the buffer (pipelining), leaving partial ones for the next read
+        void processRequests() {
+            byte[] buffer = in.array();
+            int start = 0;
+            int end = in.position();
+            while (!closeAfterWrite && !awaitingShorten) {
+                int headerEnd = indexOf(buffer, start, end, CRLF_CRLF);
+                if (headerEnd < 0) {
+                    if (end - start >= MAX_REQUEST_BYTES) {
+                        respond(431, "Request Header Fields Too Large", null, "", true);
+                    }
+                    break;
+                }
+                int bodyStart = headerEnd + 4;
+                long contentLength = headerValue(buffer, start, headerEnd, "content-length");
+                if (contentLength > MAX_REQUEST_BYTES - (bodyStart - start)) {
+                    respond(413, "Payload Too Large", null, "", true);
+                    break;
+                }
+                int length = (int) Math.max(0, contentLength);
+                if (end - bodyStart < length) {
+                    break; // body not fully received yet
+                }
+                handle(buffer, start, headerEnd, bodyStart, length);
+                start = bodyStart + length;
+            }
+            // Keep the unprocessed tail at the front of the buffer
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            in.position(end - start);
+        }
+
+        void handle(byte[] buffer, int start, int headerEnd, int bodyStart, int bodyLength) {
+            int methodEnd = indexOf(buffer, start, headerEnd, SPACE);
+            int targetEnd = methodEnd < 0 ? -1 : indexOf(buffer, methodEnd + 1, headerEnd, SPACE);
+            if (targetEnd < 0) {
+                respond(400, "Bad Request", null, "", true);
+                return;
+            }
+            int lineEnd = indexOf(buffer, targetEnd + 1, headerEnd + 2, CRLF);
+            boolean http10 = lineEnd - targetEnd - 1 == 8 && buffer[lineEnd - 1] == '0' && buffer[lineEnd - 3] == '1';
+            boolean close = http10
+                    ? !headerEquals(buffer, lineEnd, headerEnd, "connection", "keep-alive")
+                    : headerEquals(buffer, lineEnd, headerEnd, "connection", "close");
+            int targetStart = methodEnd + 1;
+
+            if (is(buffer, start, methodEnd, "GET") || is(buffer, start, methodEnd, "HEAD")) {
+                int keyEnd = targetStart + 1;
+                while (keyEnd < targetEnd && buffer[keyEnd] != '?') {
+                    keyEnd++;
+                }
+                long id = buffer[targetStart] == '/' ? Base62.decode(buffer, targetStart + 1, keyEnd) : -1;
+                String longUrl = id < 0 ? null : service.resolve(id);
+                if (longUrl == null) {
+                    respond(404, "Not Found", null, "", close);
+                } else if (permanentRedirects) {
+                    respond(301, "Moved Permanently", longUrl, "", close);
+                } else {
+                    respond(302, "Found", longUrl, "", close);
+                }
+            } else if (is(buffer, start, methodEnd, "POST") && is(buffer, targetStart, targetEnd, "/shorten")) {
+                String longUrl = new String(buffer, bodyStart, bodyLength, StandardCharsets.UTF_8).trim();
+                if (!isValidUrl(longUrl)) {
+                    respond(400, "Bad Request", null, "Expected an http(s) URL as the request body\n", close);
+                } else if (shortenLimiter != null && !shortenLimiter.tryAcquire(clientId())) {
+                    respond(429, "Too Many Requests", null, "Too many new links, retry later\n", close);
+                } else {
+                    shortenOnWorker(longUrl, close);
+                }
+            } else {
+                respond(405, "Method Not Allowed", null, "", close);
+            }
+        }
+
+        void shortenOnWorker(String longUrl, boolean close) {
+            awaitingShorten = true;
+            shortenWorkers.execute(() -> {
+                String shortUrl = null;
+                try {
+                    shortUrl = service.shortenUrl(longUrl);
+                } catch (RuntimeException e) {
+                    System.err.println("Shorten failed: " + e);
+                }
+                String result = shortUrl;
+                loop.complete(() -> finishShorten(result, close));
+            });
+        }
+
+        // On the loop thread: answers the create, then carries on with pipelined requests
+        void finishShorten(String shortUrl, boolean close) {
+            if (!key.isValid()) {
+                return; // closed meanwhile
+            }
+            awaitingShorten = false;
+            try {
+                if (shortUrl != null) {
+                    respond(201, "Created", null, shortUrl + "\n", close);
+                } else {
+                    respond(500, "Internal Server Error", null, "", true);
+                }
+                processRequests();
+                flush(key);
+            } catch (IOException | RuntimeException e) {
+                close(key);
+            }
+        }
+
+        // Writes the response straight into the output buffer, no intermediate strings
+        void respond(int status, String reason, String location, String body, boolean close) {
+            byte[] content = body.isEmpty() ? null : body.getBytes(StandardCharsets.UTF_8);
+            put("HTTP/1.1 ");
+            put(Integer.toString(status));
+            put(" ");
+            put(reason);
+            put("\r\n");
+            if (location != null) {
+                put("Location: ");
+                putLocation(location);
+                put("\r\n");
+            }
+            if (content != null) {
+                put("Content-Type: text/plain; charset=utf-8\r\n");
+            }
+            put("Content-Length: ");
+            put(content == null ? "0" : Integer.toString(content.length));
+            put("\r\n");
+            if (status == 429) {
+                put("Retry-After: 1\r\n");
+            }
+            if (close) {
+                put("Connection: close\r\n");
+            }
+            put("\r\n");
+            if (content != null) {
+                ensureOutput(content.length);
+                out.put(content);
+            }
+            closeAfterWrite |= close;
+        }
+
+        // IPv4 addresses are their own id; anything else is hashed
+        long clientId() {
+            if (clientId < 0) {
+                InetAddress address = channel.socket().getInetAddress();
+                clientId = address instanceof Inet4Address
+                        ? Integer.toUnsignedLong(ByteBuffer.wrap(address.getAddress()).getInt())
+                        : Fingerprint.of(address == null ? "" : address.getHostAddress()) & Long.MAX_VALUE;
+            }
+            return clientId;
+        }
+
+        void put(String text) {
+            ensureOutput(text.length() * 3);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) { // rare: non-ASCII URL
+                    out.put(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                out.put((byte) c);
+            }
+        }
+
+        // Control characters are percent-encoded so a stored CR/LF cannot split the response: only
+        // POST bodies pass isValidUrl, URLs from the Java API, shortenAll or a restore do not
+        void putLocation(String url) {
+            ensureOutput(url.length() * 3);
+            for (int i = 0; i < url.length(); i++) {
+                char c = url.charAt(i);
+                if (c < 0x20 || c == 0x7f) {
+                    out.put((byte) '%');
+                    out.put((byte) Character.toUpperCase(Character.forDigit(c >> 4, 16)));
+                    out.put((byte) Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+                } else if (c >= 0x80) { // a run of non-ASCII characters, written as UTF-8
+                    int end = i + 1;
+                    while (end < url.length() && url.charAt(end) >= 0x80) {
+                        end++;
+                    }
+                    out.put(url.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                    i = end - 1;
+                } else {
+                    out.put((byte) c);
+                }
+            }
+        }
+
+        void flush(SelectionKey key) throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                if (channel.write(out) == 0) {
+                    break; // socket buffer full: wait for OP_WRITE
+                }
+            }
+            boolean drained = !out.hasRemaining();
+            out.compact();
+            if (drained && closeAfterWrite) {
+                close(key);
+            } else if (key.isValid()) {
+                key.interestOps(!drained ? SelectionKey.OP_WRITE : awaitingShorten ? 0 : SelectionKey.OP_READ);
+            }
+        }
+
+        void ensureOutput(int extra) {
+            if (out.remaining() < extra) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + extra));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+        }
+
+        void close(SelectionKey key) {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+        }
+    }
+
+    // Rejects anything that could break the Location header
+    static boolean isValidUrl(String url) {
+        if (!(url.startsWith("http://") || url.startsWith("https://")) || url.length() > 8192) {
+            return false;
+        }
+        for (int i = 0; i < url.length(); i++) {
+            if (url.charAt(i) < 0x20 || url.charAt(i) == 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int indexOf(byte[] buffer, int from, int to, byte[] pattern) {
+        outer:
+        for (int i = from; i <= to - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    static boolean is(byte[] buffer, int from, int to, String ascii) {
+        if (to - from != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (buffer[from + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Numeric value of a header in [from, to), or -1 if absent / not a number
+    static long headerValue(byte[] buffer, int from, int to, String name) {
+        int valueStart = findHeader(buffer, from, to, name);
+        if (valueStart < 0) {
+            return -1;
+        }
+        long value = 0;
+        boolean digits = false;
+        for (int i = valueStart; i < to && buffer[i] != '\r'; i++) {
+            if (buffer[i] >= '0' && buffer[i] <= '9') {
+                value = value * 10 + (buffer[i] - '0');
+                digits = true;
+                if (value > Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE;
+                }
+            } else if (buffer[i] != ' ' && buffer[i] != '\t') {
+                return -1;
+            }
+        }
+        return digits ? value : -1;
+    }
+
+    static boolean headerEquals(byte[] buffer, int from, int to, String name, String expected) {
+        int valueStart = findHeader(buffer, from, to, name);
+        if (valueStart < 0) {
+            return false;
+        }
+        int valueEnd = valueStart;
+        while (valueEnd < to && buffer[valueEnd] != '\r') {
+            valueEnd++;
+        }
+        while (valueEnd > valueStart && buffer[valueEnd - 1] == ' ') {
+            valueEnd--;
+        }
+        if (valueEnd - valueStart != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(buffer[valueStart + i]) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Start of the (space-trimmed) value of a header, matching the name case-insensitively
+    private static int findHeader(byte[] buffer, int from, int to, String name) {
+        for (int line = indexOf(buffer, from, to, CRLF); line >= 0 && line + 2 < to;
+             line = indexOf(buffer, line + 2, to, CRLF)) {
+            int nameStart = line + 2;
+            if (nameStart + name.length() >= to || buffer[nameStart + name.length()] != ':') {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < name.length() && matches; i++) {
+                matches = Character.toLowerCase(buffer[nameStart + i]) == name.charAt(i);
+            }
+            if (matches) {
+                int value = nameStart + name.length() + 1;
+                while (value < to && buffer[value] == ' ') {
+                    value++;
+                }
+                return value;
+            }
+        }
+        return -1;
+    }
+}
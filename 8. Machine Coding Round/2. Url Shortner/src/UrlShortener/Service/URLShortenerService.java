@@ -0,0 +1,571 @@
+package UrlShortener.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import UrlShortener.Analytics.ClickAnalytics;
+import UrlShortener.Cache.Cache;
+import UrlShortener.Cache.SingleFlight;
+import UrlShortener.Cache.WTinyLfuCache;
+import UrlShortener.Cache.Weigher;
+import UrlShortener.Codec.Base62;
+import UrlShortener.Expiry.TimingWheel;
+import UrlShortener.Id.HashKeyAllocator;
+import UrlShortener.Id.IdAllocator;
+import UrlShortener.Id.SequentialIdAllocator;
+import UrlShortener.Metrics.ShortenerMetrics;
+import UrlShortener.Persistence.MappingJournal;
+import UrlShortener.Store.InMemoryUrlStore;
+import UrlShortener.Store.UrlStore;
+
+public class URLShortenerService {
+    public static final String BASE_URL = "https://short.ly/";
+    public static final String NOT_FOUND = "URL not found";
+    private static final int REFRESH_THREADS = 8;
+
+    private final UrlStore store;             // Permanent storage for URL mappings
+    private final Cache<Long, String> cache;  // id -> longUrl
+    private final IdAllocator ids;            // Source of ids for new short keys
+    private final HashKeyAllocator hashKeys;  // null when keys come from ids
+    private final MappingJournal journal;     // null when mappings are not persisted
+    private final ClickAnalytics analytics;   // null when clicks are not counted
+    private final TimingWheel expiry;         // null when links cannot have a TTL
+    private final SingleFlight<Long, String> loads; // null when cache misses are not coalesced
+    private final ExecutorService refresher;  // null without refresh-ahead
+    private final ShortenerMetrics metrics;   // null when not instrumented
+    private final LongSupplier clock;
+
+    public URLShortenerService() {
+        this(new Builder());
+    }
+
+    private URLShortenerService(Builder builder) {
+        this.store = builder.store != null ? builder.store : new InMemoryUrlStore();
+        this.loads = builder.coalesceMisses ? new SingleFlight<>() : null;
+        this.refresher = builder.refreshAhead != null ? newRefresher() : null;
+        this.cache = builder.cache != null ? builder.cache : builder.buildCache(this::scheduleRefresh);
+        this.ids = builder.ids != null ? builder.ids : new SequentialIdAllocator(builder.firstId);
+        this.hashKeys = builder.hashKeys;
+        this.journal = builder.journal;
+        this.analytics = builder.analytics;
+        this.clock = builder.clock;
+        this.expiry = builder.expiryTick != null ? new TimingWheel(builder.expiryTick, clock, this::expire) : null;
+        this.metrics = builder.metrics ? new ShortenerMetrics(cache::stats, cache::size, store::size) : null;
+    }
+
+    // Method to shorten a long URL
+    public String shortenUrl(String longUrl) {
+        return shortenUrl(longUrl, () -> newId(longUrl));
+    }
+
+    // Same, with the id of a new mapping taken from newId instead of the configured allocator
+    // (e.g. a router that encodes the shard slot into the id)
+    public String shortenUrl(String longUrl, LongSupplier newId) {
+        if (metrics == null) {
+            return shorten(longUrl, newId);
+        }
+        long start = System.nanoTime();
+        String shortUrl = shorten(longUrl, newId);
+        metrics.recordShorten(System.nanoTime() - start);
+        return shortUrl;
+    }
+
+    private String shorten(String longUrl, LongSupplier newId) {
+        while (true) {
+            long[] assigned = {-1};
+            long id;
+            try {
+                id = store.getOrAssign(longUrl, () -> assigned[0] = newId.getAsLong());
+            } finally {
+                releaseKey(assigned[0]);
+            }
+            if (id == assigned[0] && metrics != null) {
+                metrics.recordIdsAllocated(1);
+            }
+            if (id == assigned[0] && journal != null) {
+                journal.append(id, longUrl);
+                journal.sync(); // durable before the short URL is handed out
+            }
+            // Asking for a permanent link to a URL that has a TTL link makes that link permanent
+            if (expiry != null && id != assigned[0]) {
+                if (!expiry.cancel(id)) {
+                    expire(id); // the wheel is removing it right now: finish the removal and map afresh
+                    continue;
+                }
+                if (!longUrl.equals(store.get(id))) {
+                    continue; // expired and removed since getOrAssign found it: no deadline left to cancel
+                }
+            }
+            cacheMapping(id, longUrl);
+            return toShortUrl(id);
+        }
+    }
+
+    // Shortens a link that stops resolving after ttl. A URL that already has a key keeps it:
+    // a permanent link stays permanent, a TTL link lives until the later of the two deadlines.
+    // Needs Builder.expiryTick; not available with a journal, since deadlines are not persisted.
+    public String shortenUrl(String longUrl, Duration ttl) {
+        if (expiry == null) {
+            throw new IllegalStateException("Link expiry is off: set Builder.expiryTick");
+        }
+        if (journal != null) {
+            throw new IllegalStateException("Links with a TTL are not journaled: use a service without a journal");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive: " + ttl);
+        }
+        if (metrics == null) {
+            return shorten(longUrl, ttl);
+        }
+        long start = System.nanoTime();
+        String shortUrl = shorten(longUrl, ttl);
+        metrics.recordShorten(System.nanoTime() - start);
+        return shortUrl;
+    }
+
+    private String shorten(String longUrl, Duration ttl) {
+        long deadline = clock.getAsLong() + ttl.toMillis();
+        while (true) {
+            long[] assigned = {-1};
+            long id = -1;
+            try {
+                id = store.getOrAssign(longUrl, () -> {
+                    assigned[0] = newId(longUrl);
+                    expiry.schedule(assigned[0], deadline); // before other callers can see the mapping
+                    return assigned[0];
+                });
+            } finally {
+                if (assigned[0] >= 0 && id != assigned[0]) {
+                    expiry.cancel(assigned[0]); // drawn but unused: the key may go to another URL later
+                }
+                releaseKey(assigned[0]);
+            }
+            if (id == assigned[0]) {
+                if (metrics != null) {
+                    metrics.recordIdsAllocated(1);
+                }
+                cacheMapping(id, longUrl);
+                return toShortUrl(id);
+            }
+            if (!expiry.extend(id, deadline)) {
+                expire(id);
+                continue;
+            }
+            // extend also succeeds for an id whose expiry already finished: only a stored mapping counts
+            if (longUrl.equals(store.get(id))) {
+                cacheMapping(id, longUrl);
+                return toShortUrl(id);
+            }
+        }
+    }
+
+    // Shortens a batch: duplicates inside the batch are collapsed, URLs already stored keep their
+    // key, the new ones get ids from one contiguous reservation and the journal is synced once.
+    // The cache is left alone; imported links are cached when they are first read.
+    // Returns the short URLs in the order of longUrls.
+    public List<String> shortenAll(Collection<String> longUrls) {
+        Map<String, Integer> positions = new HashMap<>(longUrls.size() * 4 / 3 + 1);
+        List<String> unique = new ArrayList<>(longUrls.size());
+        int[] slots = new int[longUrls.size()];
+        int i = 0;
+        for (String longUrl : longUrls) {
+            Integer slot = positions.putIfAbsent(longUrl, unique.size());
+            if (slot == null) {
+                slot = unique.size();
+                unique.add(longUrl);
+            }
+            slots[i++] = slot;
+        }
+
+        // Known URLs first (one bulk lookup, batched by stores with round trips), so that ids are
+        // reserved for new URLs only
+        List<String> fresh = new ArrayList<>();
+        long[] uniqueIds = new long[unique.size()];
+        store.findIds(unique, uniqueIds);
+        for (int u = 0; u < unique.size(); u++) {
+            if (uniqueIds[u] >= 0 && expiry != null) {
+                if (!expiry.cancel(uniqueIds[u])) {
+                    expire(uniqueIds[u]); // expiring right now: shortened again below
+                    uniqueIds[u] = -1;
+                } else if (!unique.get(u).equals(store.get(uniqueIds[u]))) {
+                    uniqueIds[u] = -1; // expired since findIds: shortened again below
+                }
+            }
+            if (uniqueIds[u] < 0) {
+                fresh.add(unique.get(u));
+            }
+        }
+
+        if (!fresh.isEmpty()) {
+            long[] freshIds = new long[fresh.size()];
+            boolean[] created = new boolean[fresh.size()];
+            if (hashKeys != null) {
+                // Hash keys depend on the URL: no contiguous reservation, one getOrAssign per URL
+                for (int f = 0; f < fresh.size(); f++) {
+                    String longUrl = fresh.get(f);
+                    long[] assigned = {-1};
+                    try {
+                        freshIds[f] = store.getOrAssign(longUrl, () -> assigned[0] = newId(longUrl));
+                    } finally {
+                        releaseKey(assigned[0]);
+                    }
+                    created[f] = freshIds[f] == assigned[0];
+                    if (created[f] && metrics != null) {
+                        metrics.recordIdsAllocated(1);
+                    }
+                }
+            } else {
+                long first = ids.reserve(fresh.size());
+                if (metrics != null) {
+                    metrics.recordIdsAllocated(fresh.size());
+                }
+                long[] next = {first};
+                // A concurrent shortenUrl may win a URL meanwhile; its reserved id is then simply unused
+                store.getOrAssignAll(fresh, () -> next[0]++, freshIds);
+                for (int f = 0; f < fresh.size(); f++) {
+                    created[f] = freshIds[f] >= first && freshIds[f] < next[0];
+                }
+            }
+            for (int f = 0, u = 0; f < fresh.size(); f++) {
+                while (uniqueIds[u] >= 0) {
+                    u++;
+                }
+                uniqueIds[u] = freshIds[f];
+                if (journal != null && created[f]) {
+                    journal.append(freshIds[f], fresh.get(f));
+                }
+            }
+            if (journal != null) {
+                journal.sync(); // one durability point for the whole batch
+            }
+        }
+
+        List<String> shortUrls = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            shortUrls.add(toShortUrl(uniqueIds[slot]));
+        }
+        return shortUrls;
+    }
+
+    // Streaming variant for imports that do not fit in memory: consumes longUrls in batches of
+    // batchSize and reports each (longUrl, shortUrl) pair in input order.
+    public void shortenAll(Stream<String> longUrls, int batchSize, BiConsumer<String, String> results) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        List<String> batch = new ArrayList<>(batchSize);
+        Iterator<String> iterator = longUrls.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() == batchSize || !iterator.hasNext()) {
+                List<String> shortUrls = shortenAll(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    results.accept(batch.get(i), shortUrls.get(i));
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    // Id for a new mapping of longUrl: derived from the URL with hash keys, else the next id.
+    // A hash key stays claimed until releaseKey, once the store call that used it returns.
+    private long newId(String longUrl) {
+        return hashKeys != null ? hashKeys.claim(longUrl, id -> store.get(id) != null) : ids.nextId();
+    }
+
+    private void releaseKey(long id) {
+        if (hashKeys != null && id >= 0) {
+            hashKeys.release(id);
+        }
+    }
+
+    // Method to retrieve long URL from short URL
+    public String getLongUrl(String shortUrl) {
+        long id = parseId(shortUrl);
+        if (id < 0) {
+            return NOT_FOUND;
+        }
+        String longUrl = resolve(id);
+        return longUrl != null ? longUrl : NOT_FOUND;
+    }
+
+    // Lookup by already-decoded id (e.g. straight from a request buffer); null when unknown
+    public String resolve(long id) {
+        if (metrics == null) {
+            return lookup(id);
+        }
+        long start = System.nanoTime();
+        String longUrl = lookup(id);
+        metrics.recordResolve(System.nanoTime() - start);
+        return longUrl;
+    }
+
+    private String lookup(long id) {
+        // Check in the cache first
+        String longUrl = cache.get(id);
+        if (longUrl == null) {
+            // Fallback to permanent storage, one load per id at a time when coalescing
+            longUrl = loads != null ? loads.load(id, this::load) : load(id);
+        }
+        if (longUrl != null && expiry != null && expiry.isExpired(id)) {
+            return null; // past its deadline; the wheel removes it on its next tick
+        }
+        if (longUrl != null && analytics != null) {
+            analytics.recordHit(id);
+        }
+        return longUrl;
+    }
+
+    private String load(Long id) {
+        String longUrl = store.get(id);
+        if (longUrl != null) {
+            cacheMapping(id, longUrl);
+        }
+        return longUrl;
+    }
+
+    // Refresh-ahead: the cache hands over a hot key nearing its cache TTL. Reloads it on the
+    // refresher threads (dropped when they fall behind) so readers keep hitting the cache.
+    private void scheduleRefresh(Long id) {
+        refresher.execute(() -> {
+            try {
+                if (loads != null) {
+                    loads.load(id, this::reload);
+                } else {
+                    reload(id);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Cache refresh of " + id + " failed: " + e);
+            }
+        });
+    }
+
+    private String reload(Long id) {
+        String longUrl = store.get(id);
+        if (longUrl != null) {
+            cacheMapping(id, longUrl);
+        } else {
+            cache.remove(id); // removed from the store meanwhile, e.g. by another instance
+        }
+        return longUrl;
+    }
+
+    // A few threads, since each reload waits on the store; idle ones exit
+    private static ExecutorService newRefresher() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 1, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // Deadline of a TTL link in epoch millis, -1 for permanent or unknown links
+    public long expiresAt(String shortUrl) {
+        long id = parseId(shortUrl);
+        return id < 0 || expiry == null ? -1 : expiry.deadline(id);
+    }
+
+    // Called by the timing wheel: drops the link from the forward map, reverse map and cache.
+    // Idempotent, so shortenUrl can finish a removal that is in progress.
+    private void expire(long id) {
+        store.remove(id);
+        cache.remove(id);
+    }
+
+    // With expiry on, a lookup may read the store just before the wheel removes the link and put
+    // it back into the cache after. expire() removes from the store before the cache, so checking
+    // the store after the put catches that interleaving.
+    private void cacheMapping(long id, String longUrl) {
+        cache.put(id, longUrl);
+        if (expiry != null && store.get(id) == null) {
+            cache.remove(id);
+        }
+    }
+
+    // Decodes the key in place instead of copying it out with replace/substring
+    public static long parseId(String shortUrl) {
+        int from = shortUrl.startsWith(BASE_URL) ? BASE_URL.length() : 0;
+        return Base62.decode(shortUrl, from, shortUrl.length());
+    }
+
+    public static String toShortUrl(long id) {
+        char[] buffer = new char[BASE_URL.length() + Base62.MAX_LENGTH];
+        BASE_URL.getChars(0, BASE_URL.length(), buffer, 0);
+        int length = Base62.encode(id, buffer, BASE_URL.length());
+        return new String(buffer, 0, BASE_URL.length() + length);
+    }
+
+    public Cache<Long, String> getCache() {
+        return cache;
+    }
+
+    public UrlStore getStore() {
+        return store;
+    }
+
+    public ClickAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    // null unless Builder.coalesceMisses(true)
+    public SingleFlight<Long, String> getSingleFlight() {
+        return loads;
+    }
+
+    // null unless Builder.metrics(true)
+    public ShortenerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static class Builder {
+        private UrlStore store;
+        private Cache<Long, String> cache;
+        private int cacheCapacity = 1024;
+        private long cacheMaxBytes;
+        private long firstId = 1;
+        private IdAllocator ids;
+        private HashKeyAllocator hashKeys;
+        private MappingJournal journal;
+        private ClickAnalytics analytics;
+        private Duration expiryTick;
+        private LongSupplier clock = System::currentTimeMillis;
+        private boolean coalesceMisses;
+        private Duration cacheTtl;
+        private Duration refreshAhead;
+        private boolean metrics;
+
+        public Builder store(UrlStore store) {
+            this.store = store;
+            return this;
+        }
+
+        public Builder cache(Cache<Long, String> cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        public Builder cacheCapacity(int cacheCapacity) {
+            this.cacheCapacity = cacheCapacity;
+            return this;
+        }
+
+        // Replaces the local counter, e.g. with a LeasedIdAllocator when several instances mint keys
+        public Builder idAllocator(IdAllocator ids) {
+            this.ids = ids;
+            return this;
+        }
+
+        // Keys derived from a keyed hash of the URL instead of taken from idAllocator / firstId:
+        // no shared counter, and any instance with the same secret re-derives a URL's key. Ids are
+        // spread over the whole key space: not for stores indexed by id (ChunkedArray / Compressed).
+        public Builder hashKeys(HashKeyAllocator hashKeys) {
+            this.hashKeys = hashKeys;
+            return this;
+        }
+
+        public Builder journal(MappingJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        // Counts every successful lookup (redirect) per link
+        public Builder analytics(ClickAnalytics analytics) {
+            this.analytics = analytics;
+            return this;
+        }
+
+        // Enables shortenUrl(url, ttl); links are removed within one tick of their deadline
+        // (lookups treat them as gone from the deadline itself). Needs a store that supports remove.
+        public Builder expiryTick(Duration expiryTick) {
+            this.expiryTick = expiryTick;
+            return this;
+        }
+
+        // Time source for link deadlines and the cache TTL, in epoch millis
+        public Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        // Concurrent misses on the same id share one store read (single flight)
+        public Builder coalesceMisses(boolean coalesceMisses) {
+            this.coalesceMisses = coalesceMisses;
+            return this;
+        }
+
+        // Cached mappings are re-read from the store after this long, so links removed through
+        // a shared store by another instance stop resolving here. Built-in cache only.
+        public Builder cacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+            return this;
+        }
+
+        // With cacheTtl: an entry read after this age is reloaded in the background, so hot
+        // links never drop out of the cache when their TTL runs out
+        public Builder refreshAhead(Duration refreshAhead) {
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        // Latency histograms for shortenUrl and lookups, id allocation and cache / store counters,
+        // read through getMetrics()
+        public Builder metrics(boolean metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        // Bounds the cache by estimated heap bytes instead of entry count
+        public Builder cacheMaxBytes(long cacheMaxBytes) {
+            this.cacheMaxBytes = cacheMaxBytes;
+            return this;
+        }
+
+        public Builder firstId(long firstId) {
+            this.firstId = firstId;
+            return this;
+        }
+
+        private Cache<Long, String> buildCache(Consumer<Long> refresh) {
+            if (cacheTtl == null && refreshAhead != null) {
+                throw new IllegalStateException("refreshAhead needs a cacheTtl");
+            }
+            if (cacheMaxBytes > 0) {
+                return new WTinyLfuCache<>(cacheMaxBytes, Builder::estimatedBytes, cacheMaxBytes / 128,
+                        cacheTtl, refreshAhead, clock, refresh);
+            }
+            return new WTinyLfuCache<>(cacheCapacity, Weigher.singleton(), cacheCapacity,
+                    cacheTtl, refreshAhead, clock, refresh);
+        }
+
+        // Boxed Long + String + byte[] + cache node, compact (Latin-1) strings
+        private static int estimatedBytes(Long id, String longUrl) {
+            return 112 + longUrl.length();
+        }
+
+        public URLShortenerService build() {
+            if (hashKeys != null && ids != null) {
+                throw new IllegalStateException("hashKeys and idAllocator are alternative key sources");
+            }
+            if (cache != null && (cacheTtl != null || refreshAhead != null)) {
+                throw new IllegalStateException("cacheTtl and refreshAhead configure the built-in cache");
+            }
+            return new URLShortenerService(this);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package UrlShortener.Store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Fixed-size Bloom filter over 64-bit fingerprints. Bits are set with CAS, so add and
+// mightContain never lock. k bit positions come from double hashing h1 + i * h2.
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final double falsePositiveRate;
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder bitsSet = new LongAdder();
+
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Need capacity > 0 and 0 < falsePositiveRate < 1");
+        }
+        long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public void add(long fingerprint) {
+        long h2 = Fingerprint.mix(fingerprint) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(fingerprint + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            while (true) {
+                long current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    bitsSet.increment();
+                    break;
+                }
+            }
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(long fingerprint) {
+        long h2 = Fingerprint.mix(fingerprint) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(fingerprint + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Serialized form for filters stored next to immutable data (TieredUrlStore segments)
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(capacity);
+        out.writeDouble(falsePositiveRate);
+        out.writeLong(insertions.sum());
+        out.writeInt(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            out.writeLong(bits.get(i));
+        }
+    }
+
+    public static BloomFilter readFrom(DataInput in) throws IOException {
+        BloomFilter filter = new BloomFilter(in.readLong(), in.readDouble());
+        filter.insertions.add(in.readLong());
+        int words = in.readInt();
+        if (words != filter.bits.length()) {
+            throw new IOException("Bloom filter size mismatch: " + words + " words, expected " + filter.bits.length());
+        }
+        for (int i = 0; i < words; i++) {
+            long word = in.readLong();
+            filter.bits.set(i, word);
+            filter.bitsSet.add(Long.bitCount(word));
+        }
+        return filter;
+    }
+
+    public boolean isFull() {
+        return insertions.sum() >= capacity;
+    }
+
+    // Fraction of bits set; the false-positive rate is roughly saturation ^ k
+    public double saturation() {
+        return (double) bitsSet.sum() / bitCount;
+    }
+
+    public double expectedFalsePositiveRate() {
+        return Math.pow(saturation(), hashCount);
+    }
+
+    public long capacity() { return capacity; }
+    public double falsePositiveRate() { return falsePositiveRate; }
+    public long bitCount() { return bitCount; }
+    public long bitsSet() { return bitsSet.sum(); }
+}
@@ -0,0 +1,126 @@
+package UrlShortener.Store;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Puts a scalable Bloom filter of URL fingerprints in front of a store whose reverse lookup is
+// expensive (e.g. MappedUrlStore once it no longer fits in the page cache). A brand-new URL is
+// almost always a definite "no" from the filter and skips the reverse probe entirely.
+// The filter is rebuilt from the wrapped store when this object is created.
+public class BloomGuardedUrlStore implements UrlStore {
+    private static final int STRIPES = 256;
+
+    private final UrlStore delegate;
+    private final ScalableBloomFilter bloom;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private final LongAdder skippedProbes = new LongAdder();   // filter said no
+    private final LongAdder falsePositives = new LongAdder();  // filter said maybe, store said no
+    private final LongAdder truePositives = new LongAdder();   // filter said maybe, store found it
+
+    public BloomGuardedUrlStore(UrlStore delegate, double falsePositiveRate) {
+        this.delegate = delegate;
+        this.bloom = new ScalableBloomFilter(Math.max(1 << 16, delegate.size() * 2), falsePositiveRate);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        delegate.forEach((id, longUrl) -> bloom.add(Fingerprint.of(longUrl)));
+    }
+
+    @Override
+    public String get(long id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        long fingerprint = Fingerprint.of(longUrl);
+        if (!bloom.mightContain(fingerprint)) {
+            skippedProbes.increment();
+            return -1;
+        }
+        long id = delegate.findId(longUrl);
+        (id < 0 ? falsePositives : truePositives).increment();
+        return id;
+    }
+
+    // The stripe lock makes "filter says new, so insert without probing" atomic per URL
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        long fingerprint = Fingerprint.of(longUrl);
+        ReentrantLock lock = stripes[(int) (fingerprint >>> 56) & (STRIPES - 1)];
+        lock.lock();
+        try {
+            if (!bloom.mightContain(fingerprint)) {
+                skippedProbes.increment();
+                long id = newId.getAsLong();
+                delegate.put(id, longUrl);
+                bloom.add(fingerprint);
+                return id;
+            }
+            boolean[] inserted = {false};
+            long id = delegate.getOrAssign(longUrl, () -> {
+                inserted[0] = true;
+                return newId.getAsLong();
+            });
+            (inserted[0] ? falsePositives : truePositives).increment();
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        delegate.put(id, longUrl);
+        bloom.add(Fingerprint.of(longUrl));
+    }
+
+    // Bloom filters cannot delete: the fingerprint stays set and at worst costs one extra probe
+    @Override
+    public boolean remove(long id) {
+        return delegate.remove(id);
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    public UrlStore getDelegate() {
+        return delegate;
+    }
+
+    public double saturation() {
+        return bloom.saturation();
+    }
+
+    public double expectedFalsePositiveRate() {
+        return bloom.expectedFalsePositiveRate();
+    }
+
+    // Of the lookups for URLs that were not stored, the fraction the filter let through
+    public double observedFalsePositiveRate() {
+        long fp = falsePositives.sum();
+        long negatives = fp + skippedProbes.sum();
+        return negatives == 0 ? 0 : (double) fp / negatives;
+    }
+
+    public long skippedProbes() {
+        return skippedProbes.sum();
+    }
+
+    public String stats() {
+        return String.format("filters=%d bits=%d saturation=%.4f skippedProbes=%d falsePositives=%d truePositives=%d observedFpRate=%.5f expectedFpRate=%.5f",
+                bloom.filterCount(), bloom.bitCount(), saturation(), skippedProbes.sum(), falsePositives.sum(),
+                truePositives.sum(), observedFalsePositiveRate(), expectedFalsePositiveRate());
+    }
+}
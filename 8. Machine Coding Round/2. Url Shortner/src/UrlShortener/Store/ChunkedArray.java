@@ -0,0 +1,104 @@
+package UrlShortener.Store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Array indexed by a non-negative long, allocated in fixed-size pages as ids grow.
+// get is two array loads; set publishes with release semantics so readers never see a torn value.
+public class ChunkedArray<T> {
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private volatile Object[][] pages = new Object[16][];
+
+    @SuppressWarnings("unchecked")
+    public T get(long index) {
+        long page = index >>> PAGE_SHIFT;
+        Object[][] directory = pages;
+        if (index < 0 || page >= directory.length) {
+            return null;
+        }
+        Object[] slots = directory[(int) page];
+        return slots == null ? null : (T) SLOT.getAcquire(slots, (int) index & PAGE_MASK);
+    }
+
+    public void set(long index, T value) {
+        Object[] slots = page(index);
+        SLOT.setRelease(slots, (int) index & PAGE_MASK, value);
+    }
+
+    // Stores value only if the slot is empty; returns the previous value (null on success)
+    @SuppressWarnings("unchecked")
+    public T setIfAbsent(long index, T value) {
+        Object[] slots = page(index);
+        return (T) SLOT.compareAndExchange(slots, (int) index & PAGE_MASK, null, value);
+    }
+
+    // Clears the slot if it still holds expected
+    public boolean clear(long index, T expected) {
+        long page = index >>> PAGE_SHIFT;
+        Object[][] directory = pages;
+        if (index < 0 || page >= directory.length || directory[(int) page] == null) {
+            return false;
+        }
+        return SLOT.compareAndSet(directory[(int) page], (int) index & PAGE_MASK, expected, null);
+    }
+
+    // Allocates pages up front for indexes [0, capacity)
+    public void ensureCapacity(long capacity) {
+        if (capacity > 0) {
+            for (long index = 0; index < capacity; index += PAGE_SIZE) {
+                page(index);
+            }
+        }
+    }
+
+    // Visits non-null slots in index order
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super T> visitor) {
+        Object[][] directory = pages;
+        for (int page = 0; page < directory.length; page++) {
+            Object[] slots = directory[page];
+            if (slots == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Object value = SLOT.getAcquire(slots, i);
+                if (value != null) {
+                    visitor.visit(((long) page << PAGE_SHIFT) | i, (T) value);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor<T> {
+        void visit(long index, T value);
+    }
+
+    private Object[] page(long index) {
+        if (index < 0 || (index >>> PAGE_SHIFT) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+        int page = (int) (index >>> PAGE_SHIFT);
+        Object[][] directory = pages;
+        if (page < directory.length && directory[page] != null) {
+            return directory[page];
+        }
+        return allocatePage(page);
+    }
+
+    private synchronized Object[] allocatePage(int page) {
+        Object[][] directory = pages;
+        if (page >= directory.length) {
+            directory = java.util.Arrays.copyOf(directory, Math.max(page + 1, directory.length * 2));
+        }
+        if (directory[page] == null) {
+            directory[page] = new Object[PAGE_SIZE];
+        }
+        pages = directory; // volatile write publishes the new page
+        return directory[page];
+    }
+}
@@ -0,0 +1,79 @@
+package UrlShortener.Store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Dense storage for sequential ids: the id is the array index, so a lookup needs no hashing
+// and no boxed key. Wasteful for sparse ids (e.g. hash-derived keys) - use InMemoryUrlStore there.
+// Dedupe goes through a FingerprintIndex, so each long URL is stored exactly once.
+public class ChunkedArrayUrlStore implements UrlStore {
+    private final ChunkedArray<String> urls = new ChunkedArray<>();
+    private final FingerprintIndex reverseIndex;
+    private final AtomicLong size = new AtomicLong();
+
+    public ChunkedArrayUrlStore() {
+        this(1 << 10);
+    }
+
+    public ChunkedArrayUrlStore(long expectedEntries) {
+        this.reverseIndex = new FingerprintIndex(expectedEntries);
+    }
+
+    @Override
+    public String get(long id) {
+        return urls.get(id);
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        return reverseIndex.find(Fingerprint.of(longUrl), longUrl, urls::get);
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        long fingerprint = Fingerprint.of(longUrl);
+        long id = reverseIndex.find(fingerprint, longUrl, urls::get);
+        if (id >= 0) {
+            return id;
+        }
+        return reverseIndex.findOrInsert(fingerprint, longUrl, urls::get, () -> {
+            long fresh = newId.getAsLong();
+            urls.set(fresh, longUrl); // visible before the reverse entry is published
+            size.incrementAndGet();
+            return fresh;
+        });
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        if (urls.setIfAbsent(id, longUrl) == null) {
+            size.incrementAndGet();
+            reverseIndex.add(Fingerprint.of(longUrl), id);
+        }
+    }
+
+    // Clears the slot, then drops the fingerprint entry; a racing lookup that still finds the
+    // fingerprint resolves it to null and treats the URL as unknown
+    @Override
+    public boolean remove(long id) {
+        String longUrl = urls.get(id);
+        if (longUrl == null || !urls.clear(id, longUrl)) {
+            return false;
+        }
+        size.decrementAndGet();
+        reverseIndex.remove(Fingerprint.of(longUrl), id);
+        return true;
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        urls.forEach(action::accept);
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+}
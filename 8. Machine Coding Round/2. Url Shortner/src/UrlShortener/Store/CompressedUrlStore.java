@@ -0,0 +1,90 @@
+package UrlShortener.Store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+import UrlShortener.Codec.UrlCompressor;
+
+// ChunkedArrayUrlStore layout with each long URL kept as one compressed byte[] (dictionary prefix
+// code + UTF-8 remainder) instead of a String: no String header per mapping and the shared
+// scheme/host/directory text stored once. get decompresses on every call, so pair it with the
+// service cache, which holds the hot URLs as Strings.
+public class CompressedUrlStore implements UrlStore {
+    private final ChunkedArray<byte[]> urls = new ChunkedArray<>();
+    private final FingerprintIndex reverseIndex;
+    private final UrlCompressor compressor;
+    private final AtomicLong size = new AtomicLong();
+
+    public CompressedUrlStore() {
+        this(1 << 10);
+    }
+
+    public CompressedUrlStore(long expectedEntries) {
+        this(expectedEntries, new UrlCompressor());
+    }
+
+    public CompressedUrlStore(long expectedEntries, UrlCompressor compressor) {
+        this.reverseIndex = new FingerprintIndex(expectedEntries);
+        this.compressor = compressor;
+    }
+
+    @Override
+    public String get(long id) {
+        byte[] packed = urls.get(id);
+        return packed == null ? null : compressor.decompress(packed);
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        return reverseIndex.find(Fingerprint.of(longUrl), longUrl, this::get);
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        long fingerprint = Fingerprint.of(longUrl);
+        long id = reverseIndex.find(fingerprint, longUrl, this::get);
+        if (id >= 0) {
+            return id;
+        }
+        return reverseIndex.findOrInsert(fingerprint, longUrl, this::get, () -> {
+            long fresh = newId.getAsLong();
+            urls.set(fresh, compressor.compress(longUrl)); // visible before the reverse entry is published
+            size.incrementAndGet();
+            return fresh;
+        });
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        if (urls.setIfAbsent(id, compressor.compress(longUrl)) == null) {
+            size.incrementAndGet();
+            reverseIndex.add(Fingerprint.of(longUrl), id);
+        }
+    }
+
+    @Override
+    public boolean remove(long id) {
+        byte[] packed = urls.get(id);
+        if (packed == null || !urls.clear(id, packed)) {
+            return false;
+        }
+        size.decrementAndGet();
+        reverseIndex.remove(Fingerprint.of(compressor.decompress(packed)), id);
+        return true;
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        urls.forEach((id, packed) -> action.accept(id, compressor.decompress(packed)));
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    public UrlCompressor getCompressor() {
+        return compressor;
+    }
+}
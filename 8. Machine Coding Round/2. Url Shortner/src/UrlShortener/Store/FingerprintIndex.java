@@ -0,0 +1,197 @@
+package UrlShortener.Store;
+
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.concurrent.locks.StampedLock;
+
+// Reverse index long URL -> id that stores only a 64-bit fingerprint of the URL and the id
+// (16 bytes per slot in two primitive arrays) instead of a second String key.
+// A fingerprint match is confirmed by resolving the id against the single stored copy of the
+// URL, so two URLs with the same fingerprint both stay correct.
+// Split into segments with a StampedLock each: lookups are optimistic reads, inserts lock one segment.
+public class FingerprintIndex {
+    private static final int SEGMENT_BITS = 6;
+    private static final long EMPTY = 0;    // id + 1 is stored, so 0 means free
+    private static final long DELETED = -1; // tombstone, dropped on the next resize
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public FingerprintIndex() {
+        this(1 << 10);
+    }
+
+    public FingerprintIndex(long expectedEntries) {
+        int perSegment = (int) Math.min(1 << 29, Math.max(16, expectedEntries >>> SEGMENT_BITS));
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    // Returns the id of longUrl, or -1. resolver maps a candidate id to its stored URL.
+    public long find(long fingerprint, String longUrl, LongFunction<String> resolver) {
+        Segment segment = segmentFor(fingerprint);
+        long stamp = segment.lock.tryOptimisticRead();
+        long id = segment.find(fingerprint, longUrl, resolver);
+        if (segment.lock.validate(stamp)) {
+            return id;
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.find(fingerprint, longUrl, resolver);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    // Atomic find-or-insert: newId runs (and must store the forward mapping) under the segment lock
+    public long findOrInsert(long fingerprint, String longUrl, LongFunction<String> resolver, LongSupplier newId) {
+        Segment segment = segmentFor(fingerprint);
+        long stamp = segment.lock.writeLock();
+        try {
+            long id = segment.find(fingerprint, longUrl, resolver);
+            if (id < 0) {
+                id = newId.getAsLong();
+                segment.insert(fingerprint, id);
+            }
+            return id;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Adds an entry whose uniqueness the caller already guarantees (recovery, bulk load)
+    public void add(long fingerprint, long id) {
+        Segment segment = segmentFor(fingerprint);
+        long stamp = segment.lock.writeLock();
+        try {
+            segment.insert(fingerprint, id);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long fingerprint, long id) {
+        Segment segment = segmentFor(fingerprint);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.remove(fingerprint, id);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        volatile Table table;
+        int size;
+        int used; // live entries + tombstones
+
+        Segment(int expected) {
+            this.table = new Table(tableSize(expected));
+        }
+
+        long find(long fingerprint, String longUrl, LongFunction<String> resolver) {
+            Table t = table;
+            int mask = t.fingerprints.length - 1;
+            for (int slot = (int) fingerprint & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+                long stored = t.ids[slot];
+                if (stored == EMPTY) {
+                    return -1;
+                }
+                if (stored != DELETED && t.fingerprints[slot] == fingerprint) {
+                    String candidate = resolver.apply(stored - 1);
+                    if (longUrl.equals(candidate)) {
+                        return stored - 1;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        void insert(long fingerprint, long id) {
+            if ((used + 1) * 4L > table.ids.length * 3L) {
+                resize(size + 1 > table.ids.length / 2 ? table.ids.length * 2 : table.ids.length);
+            }
+            Table t = table;
+            int mask = t.ids.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (t.ids[slot] != EMPTY && t.ids[slot] != DELETED) {
+                slot = (slot + 1) & mask;
+            }
+            if (t.ids[slot] == EMPTY) {
+                used++;
+            }
+            t.fingerprints[slot] = fingerprint;
+            t.ids[slot] = id + 1;
+            size++;
+        }
+
+        boolean remove(long fingerprint, long id) {
+            Table t = table;
+            int mask = t.ids.length - 1;
+            for (int slot = (int) fingerprint & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+                long stored = t.ids[slot];
+                if (stored == EMPTY) {
+                    return false;
+                }
+                if (stored == id + 1 && t.fingerprints[slot] == fingerprint) {
+                    t.ids[slot] = DELETED;
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Rebuilds into a new table (dropping tombstones); readers keep probing the old one until they revalidate
+        private void resize(int capacity) {
+            Table old = table;
+            Table fresh = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.ids.length; i++) {
+                long stored = old.ids[i];
+                if (stored != EMPTY && stored != DELETED) {
+                    int slot = (int) old.fingerprints[i] & mask;
+                    while (fresh.ids[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    fresh.fingerprints[slot] = old.fingerprints[i];
+                    fresh.ids[slot] = stored;
+                }
+            }
+            used = size;
+            table = fresh;
+        }
+
+        private static int tableSize(int expected) {
+            return Integer.highestOneBit(Math.max(16, expected * 4 / 3) - 1) << 1;
+        }
+    }
+
+    private static final class Table {
+        final long[] fingerprints;
+        final long[] ids;
+
+        Table(int capacity) {
+            this.fingerprints = new long[capacity];
+            this.ids = new long[capacity];
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package UrlShortener.Store;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+// Immutable id -> long URL index for read-only replicas, compiled from another store by write()
+// and memory-mapped by open(), so a replica starts in milliseconds however many links it serves:
+//   [long magic][long version][long count][long max id][long hash bytes][long blob bytes][padding]
+//   [PerfectHash over the ids] [count x (long id, long blob offset), in hash order]
+//   [blob: ([int length][UTF-8 bytes])*, records never straddle a 1 GiB chunk]
+// A lookup is a perfect-hash probe, one table entry (the stored id rejects unknown keys) and the
+// record. There is no reverse index and nothing can be added: shortening through a service on this
+// store throws UnsupportedOperationException. Export again and reopen to pick up new links.
+public class FrozenUrlStore implements UrlStore, Closeable {
+    private static final long MAGIC = 0x55524c46524f5a4eL; // "URLFROZN"
+    private static final long VERSION = 1;
+    private static final int HEADER_BYTES = 64; // keeps the hash blocks on cache lines
+    private static final int ENTRY_BYTES = 16;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT; // one MappedByteBuffer per GiB
+    private static final int BUFFER = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long count;
+    private final long maxId;
+    private final PerfectHash hash;
+    private final MappedByteBuffer[] table;
+    private final MappedByteBuffer[] blob;
+
+    private FrozenUrlStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_BYTES, channel.size()));
+            if (header.capacity() < HEADER_BYTES || header.getLong(0) != MAGIC || header.getLong(8) != VERSION) {
+                throw new IOException("Not a frozen URL index: " + file);
+            }
+            this.count = header.getLong(16);
+            this.maxId = header.getLong(24);
+            long hashBytes = header.getLong(32);
+            long blobBytes = header.getLong(40);
+            long tableStart = HEADER_BYTES + hashBytes;
+            long blobStart = tableStart + count * ENTRY_BYTES;
+            if (channel.size() != blobStart + blobBytes) {
+                throw new IOException("Truncated frozen index: " + file);
+            }
+            this.hash = PerfectHash.read(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, hashBytes));
+            this.table = mapAll(channel, tableStart, count * ENTRY_BYTES);
+            this.blob = mapAll(channel, blobStart, blobBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static FrozenUrlStore open(Path file) {
+        try {
+            return new FrozenUrlStore(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open frozen index " + file, e);
+        }
+    }
+
+    // Compiles every mapping of source into file (written to a temp file and renamed) and returns
+    // the number of mappings. Needs about 20 bytes of heap per mapping while it runs; the URLs
+    // themselves are streamed to disk.
+    public static long write(UrlStore source, Path file) {
+        Path blobTemp = file.resolveSibling(file.getFileName() + ".blob.tmp");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            long[][] ids = {new long[1024]};
+            long[][] offsets = {new long[1024]};
+            int[] count = {0};
+            long[] end = {0};
+            long[] maxId = {0};
+            try (FileOutputStream blobFile = new FileOutputStream(blobTemp.toFile())) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(blobFile, BUFFER));
+                IOException[] failure = new IOException[1];
+                source.forEach((id, longUrl) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        byte[] utf8 = longUrl.getBytes(StandardCharsets.UTF_8);
+                        long recordSize = 4 + utf8.length;
+                        if ((end[0] & (CHUNK_SIZE - 1)) + recordSize > CHUNK_SIZE) {
+                            long padding = CHUNK_SIZE - (end[0] & (CHUNK_SIZE - 1));
+                            out.write(new byte[(int) padding]);
+                            end[0] += padding;
+                        }
+                        if (count[0] == ids[0].length) {
+                            ids[0] = Arrays.copyOf(ids[0], count[0] * 2);
+                            offsets[0] = Arrays.copyOf(offsets[0], count[0] * 2);
+                        }
+                        ids[0][count[0]] = id;
+                        offsets[0][count[0]++] = end[0];
+                        out.writeInt(utf8.length);
+                        out.write(utf8);
+                        end[0] += recordSize;
+                        maxId[0] = Math.max(maxId[0], id);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                out.flush();
+            }
+
+            PerfectHash hash = PerfectHash.build(ids[0], count[0]);
+            int[] order = new int[count[0]];
+            for (int k = 0; k < count[0]; k++) {
+                order[(int) hash.index(ids[0][k])] = k;
+            }
+            try (FileOutputStream indexFile = new FileOutputStream(temp.toFile());
+                 FileChannel blobChannel = FileChannel.open(blobTemp, StandardOpenOption.READ)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(indexFile, BUFFER));
+                out.writeLong(MAGIC);
+                out.writeLong(VERSION);
+                out.writeLong(count[0]);
+                out.writeLong(maxId[0]);
+                out.writeLong(hash.bytes());
+                out.writeLong(end[0]);
+                out.write(new byte[HEADER_BYTES - 48]);
+                hash.writeTo(out);
+                for (int index = 0; index < count[0]; index++) {
+                    out.writeLong(ids[0][order[index]]);
+                    out.writeLong(offsets[0][order[index]]);
+                }
+                out.flush();
+                FileChannel target = indexFile.getChannel();
+                for (long position = 0; position < end[0]; ) {
+                    position += blobChannel.transferTo(position, end[0] - position, target);
+                }
+                indexFile.getFD().sync();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return count[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write frozen index " + file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(blobTemp);
+            } catch (IOException e) {
+                System.err.println("Cannot delete " + blobTemp + ": " + e);
+            }
+        }
+    }
+
+    @Override
+    public String get(long id) {
+        long index = hash.index(id);
+        if (index < 0) {
+            return null;
+        }
+        long position = index * ENTRY_BYTES;
+        MappedByteBuffer chunk = table[(int) (position >>> CHUNK_SHIFT)];
+        int offset = (int) (position & (CHUNK_SIZE - 1));
+        if (chunk.getLong(offset) != id) {
+            return null;
+        }
+        return new String(readRecord(chunk.getLong(offset + 8)), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        throw new UnsupportedOperationException("FrozenUrlStore has no reverse index");
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        throw new UnsupportedOperationException("FrozenUrlStore is read-only");
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        throw new UnsupportedOperationException("FrozenUrlStore is read-only");
+    }
+
+    // In hash order, not id order
+    @Override
+    public void forEach(MappingConsumer action) {
+        for (long position = 0; position < count * ENTRY_BYTES; position += ENTRY_BYTES) {
+            MappedByteBuffer chunk = table[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            action.accept(chunk.getLong(offset), new String(readRecord(chunk.getLong(offset + 8)), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    // Highest id in the index
+    public long maxId() {
+        return maxId;
+    }
+
+    // Perfect-hash size per mapping, in bits
+    public double hashBitsPerKey() {
+        return hash.bitsPerKey();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // The mappings stay readable until they are garbage collected; only the channel is closed
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private byte[] readRecord(long blobOffset) {
+        MappedByteBuffer chunk = blob[(int) (blobOffset >>> CHUNK_SHIFT)];
+        int offset = (int) (blobOffset & (CHUNK_SIZE - 1));
+        byte[] utf8 = new byte[chunk.getInt(offset)];
+        chunk.get(offset + 4, utf8);
+        return utf8;
+    }
+
+    private static MappedByteBuffer[] mapAll(FileChannel channel, long start, long bytes) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + i * CHUNK_SIZE,
+                    Math.min(CHUNK_SIZE, bytes - i * CHUNK_SIZE));
+        }
+        return chunks;
+    }
+}
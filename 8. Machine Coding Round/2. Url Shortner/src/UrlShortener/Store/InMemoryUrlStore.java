@@ -0,0 +1,68 @@
+package UrlShortener.Store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+public class InMemoryUrlStore implements UrlStore {
+    private final ConcurrentHashMap<Long, String> urlMap;
+    private final ConcurrentHashMap<String, Long> reverseMap;
+
+    public InMemoryUrlStore() {
+        this(16);
+    }
+
+    public InMemoryUrlStore(int expectedSize) {
+        this.urlMap = new ConcurrentHashMap<>(expectedSize);
+        this.reverseMap = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    @Override
+    public String get(long id) {
+        return urlMap.get(id);
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        Long id = reverseMap.get(longUrl);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        Long id = reverseMap.get(longUrl); // lock-free fast path for duplicates
+        if (id != null) {
+            return id;
+        }
+        return reverseMap.computeIfAbsent(longUrl, url -> {
+            long fresh = newId.getAsLong();
+            urlMap.put(fresh, url); // visible before the reverse entry is published
+            return fresh;
+        });
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        urlMap.put(id, longUrl);
+        reverseMap.putIfAbsent(longUrl, id);
+    }
+
+    @Override
+    public boolean remove(long id) {
+        String longUrl = urlMap.remove(id);
+        if (longUrl == null) {
+            return false;
+        }
+        reverseMap.remove(longUrl, id);
+        return true;
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        urlMap.forEach(action::accept);
+    }
+
+    @Override
+    public long size() {
+        return urlMap.size();
+    }
+}
@@ -0,0 +1,523 @@
+package UrlShortener.Store;
+
+import java.io.Closeable;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Relational store over plain JDBC (tested on embedded H2; the SQL is portable to PostgreSQL):
+//   short_links(id BIGINT PRIMARY KEY, fingerprint BIGINT NOT NULL UNIQUE, long_url VARCHAR NOT NULL)
+// get is a primary-key lookup; dedupe goes through the unique fingerprint index, and that index
+// also makes concurrent getOrAssign calls (from any number of service instances) agree on one id.
+// Batches (findIds, getOrAssignAll, putAll) cost one IN-list query per BATCH URLs plus one batched
+// insert in a transaction, not a round trip per link.
+//
+// Two URLs with the same 64-bit fingerprint cannot share the unique index: the later one is
+// stored under the fingerprint with seed 1 (then 2, ...), and lookups probe seeds until one is
+// free. Removing the first URL can hide the second from dedupe, which then gives it another id -
+// a duplicate mapping, never a wrong one.
+public class JdbcUrlStore implements UrlStore, Closeable {
+    private static final int BATCH = 500;
+    private static final int MAX_SEEDS = 16;
+
+    private final BlockingQueue<Connection> pool;
+
+    private JdbcUrlStore(List<Connection> connections) {
+        this.pool = new ArrayBlockingQueue<>(connections.size(), false, connections);
+    }
+
+    // Opens poolSize connections to jdbcUrl and creates the table and index if they are missing
+    public static JdbcUrlStore open(String jdbcUrl, String user, String password, int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        List<Connection> connections = new ArrayList<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                connections.add(DriverManager.getConnection(jdbcUrl, user, password));
+            }
+            try (Statement statement = connections.get(0).createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS short_links ("
+                        + "id BIGINT PRIMARY KEY, fingerprint BIGINT NOT NULL, long_url VARCHAR NOT NULL)");
+                statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS short_links_fingerprint ON short_links (fingerprint)");
+            }
+            return new JdbcUrlStore(connections);
+        } catch (SQLException e) {
+            for (Connection connection : connections) {
+                closeQuietly(connection);
+            }
+            throw new IllegalStateException("Cannot open JDBC store at " + jdbcUrl, e);
+        }
+    }
+
+    @Override
+    public String get(long id) {
+        Connection connection = borrow();
+        try (PreparedStatement select = connection.prepareStatement("SELECT long_url FROM short_links WHERE id = ?")) {
+            select.setLong(1, id);
+            try (ResultSet row = select.executeQuery()) {
+                return row.next() ? row.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            throw failure("get", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        Connection connection = borrow();
+        try {
+            return probe(connection, longUrl)[0];
+        } catch (SQLException e) {
+            throw failure("findId", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    // One IN-list query per BATCH URLs; a URL whose fingerprint belongs to another URL is probed
+    @Override
+    public void findIds(List<String> longUrls, long[] ids) {
+        Connection connection = borrow();
+        try {
+            for (int from = 0; from < longUrls.size(); from += BATCH) {
+                List<String> chunk = longUrls.subList(from, Math.min(longUrls.size(), from + BATCH));
+                long[] fingerprints = new long[chunk.size()];
+                for (int i = 0; i < chunk.size(); i++) {
+                    fingerprints[i] = Fingerprint.of(chunk.get(i));
+                }
+                Map<Long, Row> existing = selectByFingerprint(connection, fingerprints);
+                for (int i = 0; i < chunk.size(); i++) {
+                    Row row = existing.get(fingerprints[i]);
+                    if (row == null) {
+                        ids[from + i] = -1;
+                    } else if (row.longUrl.equals(chunk.get(i))) {
+                        ids[from + i] = row.id;
+                    } else {
+                        ids[from + i] = probe(connection, chunk.get(i))[0];
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw failure("findIds", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    // No connection is held while newId runs: the supplier may call back into this store (hash
+    // keys check get), and with every pooled connection held by such callers borrow() would hang.
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        try {
+            long id = -1;
+            long failedSeed = -1;
+            while (true) {
+                long[] probe;
+                Connection connection = borrow();
+                try {
+                    probe = probe(connection, longUrl);
+                } finally {
+                    pool.add(connection);
+                }
+                if (probe[0] >= 0) {
+                    return probe[0];
+                }
+                if (probe[1] == failedSeed) {
+                    throw new IllegalStateException("Id " + id + " is already stored for another URL");
+                }
+                if (id < 0) {
+                    id = newId.getAsLong(); // drawn once: a lost race below retries with the same id
+                }
+                connection = borrow();
+                try {
+                    if (insert(connection, id, longUrl, probe[1])) {
+                        return id;
+                    }
+                } finally {
+                    pool.add(connection);
+                }
+                // Another writer took the fingerprint first (probe again) or the id (the same seed fails twice)
+                failedSeed = probe[1];
+            }
+        } catch (SQLException e) {
+            throw failure("getOrAssign", e);
+        }
+    }
+
+    // Known URLs are resolved with IN-list queries on the fingerprint, the rest inserted as one
+    // JDBC batch per chunk. A chunk whose batch fails (a concurrent insert of the same URL, a
+    // fingerprint collision) is rolled back and redone one URL at a time with the ids already
+    // drawn for it: newId is called at most once per URL, so a caller that reserved one id per URL
+    // (shortenAll) never gets ids beyond its reservation. As in getOrAssign, no connection is held
+    // while newId runs.
+    @Override
+    public void getOrAssignAll(List<String> longUrls, LongSupplier newId, long[] ids) {
+        try {
+            for (int from = 0; from < longUrls.size(); from += BATCH) {
+                List<String> chunk = longUrls.subList(from, Math.min(longUrls.size(), from + BATCH));
+                long[] fingerprints = new long[chunk.size()];
+                for (int i = 0; i < chunk.size(); i++) {
+                    fingerprints[i] = Fingerprint.of(chunk.get(i));
+                }
+                Map<Long, Row> existing;
+                Connection connection = borrow();
+                try {
+                    existing = selectByFingerprint(connection, fingerprints);
+                } finally {
+                    pool.add(connection);
+                }
+                List<Integer> pending = new ArrayList<>();
+                long[] drawn = new long[chunk.size()]; // one fresh id per URL not stored yet
+                boolean collision = false;
+                for (int i = 0; i < chunk.size(); i++) {
+                    Row row = existing.get(fingerprints[i]);
+                    if (row != null && row.longUrl.equals(chunk.get(i))) {
+                        ids[from + i] = row.id;
+                        continue;
+                    }
+                    ids[from + i] = -1;
+                    drawn[i] = newId.getAsLong();
+                    if (row == null) {
+                        pending.add(i);
+                    } else {
+                        collision = true; // another URL owns the fingerprint: settled one at a time
+                    }
+                }
+                connection = borrow();
+                try {
+                    if (!insertBatch(connection, chunk, fingerprints, pending, drawn, ids, from) || collision) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (ids[from + i] < 0) {
+                                ids[from + i] = assign(connection, chunk.get(i), drawn[i]);
+                            }
+                        }
+                    }
+                } finally {
+                    pool.add(connection);
+                }
+            }
+        } catch (SQLException e) {
+            throw failure("getOrAssignAll", e);
+        }
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        Connection connection = borrow();
+        try {
+            put(connection, id, longUrl);
+        } catch (SQLException e) {
+            throw failure("put", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    // One batched insert per BATCH mappings; a chunk that hits existing rows is redone row by row
+    @Override
+    public void putAll(long[] ids, List<String> longUrls) {
+        Connection connection = borrow();
+        try {
+            for (int from = 0; from < longUrls.size(); from += BATCH) {
+                int to = Math.min(longUrls.size(), from + BATCH);
+                if (!insertRows(connection, ids, longUrls, from, to)) {
+                    for (int i = from; i < to; i++) {
+                        put(connection, ids[i], longUrls.get(i));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw failure("putAll", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    @Override
+    public boolean remove(long id) {
+        Connection connection = borrow();
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM short_links WHERE id = ?")) {
+            delete.setLong(1, id);
+            return delete.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw failure("remove", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        Connection connection = borrow();
+        try (Statement select = connection.createStatement()) {
+            select.setFetchSize(BATCH);
+            try (ResultSet rows = select.executeQuery("SELECT id, long_url FROM short_links ORDER BY id")) {
+                while (rows.next()) {
+                    action.accept(rows.getLong(1), rows.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw failure("forEach", e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    @Override
+    public long size() {
+        return aggregate("SELECT COUNT(*) FROM short_links");
+    }
+
+    // Highest stored id, or 0; the table outlives the process, so the service's counter must start after it
+    public long maxId() {
+        return aggregate("SELECT COALESCE(MAX(id), 0) FROM short_links");
+    }
+
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = pool.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    // Stores longUrl under id unless the URL is already stored, probing again when another writer
+    // takes its fingerprint first; the same id is reused for every attempt
+    private long assign(Connection connection, String longUrl, long id) throws SQLException {
+        long failedSeed = -1;
+        while (true) {
+            long[] probe = probe(connection, longUrl);
+            if (probe[0] >= 0) {
+                return probe[0];
+            }
+            if (probe[1] == failedSeed) {
+                throw new IllegalStateException("Id " + id + " is already stored for another URL");
+            }
+            if (insert(connection, id, longUrl, probe[1])) {
+                return id;
+            }
+            failedSeed = probe[1];
+        }
+    }
+
+    // false when the id or the fingerprint is already stored
+    private static boolean insert(Connection connection, long id, String longUrl, long seed) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO short_links (id, fingerprint, long_url) VALUES (?, ?, ?)")) {
+            insert.setLong(1, id);
+            insert.setLong(2, Fingerprint.of(longUrl, seed));
+            insert.setString(3, longUrl);
+            insert.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    private void put(Connection connection, long id, String longUrl) throws SQLException {
+        for (int seed = 0; seed < MAX_SEEDS; seed++) {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO short_links (id, fingerprint, long_url) VALUES (?, ?, ?)")) {
+                insert.setLong(1, id);
+                insert.setLong(2, Fingerprint.of(longUrl, seed));
+                insert.setString(3, longUrl);
+                insert.executeUpdate();
+                return;
+            } catch (SQLException e) {
+                if (!isConstraintViolation(e)) {
+                    throw e;
+                }
+            }
+            // Either the id is already stored (put is idempotent) or another URL owns this fingerprint
+            try (PreparedStatement select = connection.prepareStatement("SELECT 1 FROM short_links WHERE id = ?")) {
+                select.setLong(1, id);
+                try (ResultSet row = select.executeQuery()) {
+                    if (row.next()) {
+                        return;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No free fingerprint for " + longUrl);
+    }
+
+    // {id or -1, first seed whose fingerprint is free}
+    private long[] probe(Connection connection, String longUrl) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, long_url FROM short_links WHERE fingerprint = ?")) {
+            for (int seed = 0; seed < MAX_SEEDS; seed++) {
+                select.setLong(1, Fingerprint.of(longUrl, seed));
+                try (ResultSet row = select.executeQuery()) {
+                    if (!row.next()) {
+                        return new long[] {-1, seed};
+                    }
+                    if (longUrl.equals(row.getString(2))) {
+                        return new long[] {row.getLong(1), seed};
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No free fingerprint for " + longUrl);
+    }
+
+    private Map<Long, Row> selectByFingerprint(Connection connection, long[] fingerprints) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT fingerprint, id, long_url FROM short_links WHERE fingerprint IN (");
+        for (int i = 0; i < fingerprints.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        Map<Long, Row> rows = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(sql.append(')').toString())) {
+            for (int i = 0; i < fingerprints.length; i++) {
+                select.setLong(i + 1, fingerprints[i]);
+            }
+            try (ResultSet result = select.executeQuery()) {
+                while (result.next()) {
+                    rows.put(result.getLong(1), new Row(result.getLong(2), result.getString(3)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Inserts chunk[pending] under drawn[pending] in one transaction and copies those ids to ids;
+    // false when some rows are left to be settled one at a time (ids -1): on conflict everything is
+    // rolled back, and a fingerprint that comes twice in the chunk (a collision) is only inserted once
+    private boolean insertBatch(Connection connection, List<String> chunk, long[] fingerprints, List<Integer> pending,
+                                long[] drawn, long[] ids, int offset) throws SQLException {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        // Rows go in fingerprint order, so two batches sharing URLs lock index entries in the same
+        // order and one waits for the other instead of both timing out
+        pending.sort((a, b) -> Long.compare(fingerprints[a], fingerprints[b]));
+        Map<Long, Integer> firstWithFingerprint = new HashMap<>();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO short_links (id, fingerprint, long_url) VALUES (?, ?, ?)")) {
+            for (int i : pending) {
+                if (firstWithFingerprint.putIfAbsent(fingerprints[i], i) != null) {
+                    continue;
+                }
+                insert.setLong(1, drawn[i]);
+                insert.setLong(2, fingerprints[i]);
+                insert.setString(3, chunk.get(i));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+            for (int i : firstWithFingerprint.values()) {
+                ids[offset + i] = drawn[i];
+            }
+            return firstWithFingerprint.size() == pending.size();
+        } catch (SQLException e) {
+            connection.rollback(); // or setAutoCommit(true) would commit the part that went in
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            return false;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private boolean insertRows(Connection connection, long[] ids, List<String> longUrls, int from, int to)
+            throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO short_links (id, fingerprint, long_url) VALUES (?, ?, ?)")) {
+            for (int i = from; i < to; i++) {
+                insert.setLong(1, ids[i]);
+                insert.setLong(2, Fingerprint.of(longUrls.get(i)));
+                insert.setString(3, longUrls.get(i));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            return false;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private long aggregate(String sql) {
+        Connection connection = borrow();
+        try (Statement statement = connection.createStatement(); ResultSet row = statement.executeQuery(sql)) {
+            row.next();
+            return row.getLong(1);
+        } catch (SQLException e) {
+            throw failure(sql, e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    private Connection borrow() {
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a JDBC connection", e);
+        }
+    }
+
+    // SQLSTATE class 23: integrity constraint violation (duplicate key here). Drivers differ in
+    // whether a failed batch carries the state itself or on the chained exception.
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause.getSQLState() != null && cause.getSQLState().startsWith("23")) {
+                return true;
+            }
+            if (!(cause instanceof BatchUpdateException)) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static IllegalStateException failure(String operation, SQLException e) {
+        return new IllegalStateException("JDBC store " + operation + " failed", e);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Closing JDBC connection failed: " + e);
+        }
+    }
+
+    private static final class Row {
+        final long id;
+        final String longUrl;
+
+        Row(long id, String longUrl) {
+            this.id = id;
+            this.longUrl = longUrl;
+        }
+    }
+}
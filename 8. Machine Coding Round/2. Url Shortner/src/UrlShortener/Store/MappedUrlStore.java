@@ -0,0 +1,335 @@
+package UrlShortener.Store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Off-heap store in memory-mapped files, so 100M+ links cost no Java heap and survive restarts
+// without being reloaded:
+//   header.dat  - magic, table capacity, entry count, arena end, highest id
+//   forward.dat - open-addressing table of [id + 1, arena offset] slots
+//   reverse.dat - open-addressing table of [fingerprint, id + 1] slots (duplicates allowed)
+//   arena.dat   - append-only [int length][UTF-8 bytes] records
+// Writers are serialized by a lock. Readers never lock: a slot's value is written before its key
+// and the key is published with a release store, so a reader that sees the key sees the rest.
+// Tables do not grow: size the store for the expected number of links when it is first created.
+// Mappings are never removed (no remove), so links with a TTL need one of the heap stores.
+public class MappedUrlStore implements UrlStore, Closeable {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long MAGIC = 0x55524c53544f5245L; // "URLSTORE"
+    private static final int SLOT_BYTES = 16;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT; // one MappedByteBuffer per GiB
+    private static final int HEADER_BYTES = 64;
+    private static final int H_MAGIC = 0, H_CAPACITY = 8, H_SIZE = 16, H_ARENA_END = 24, H_MAX_ID = 32;
+
+    private final Path directory;
+    private final FileChannel headerChannel;
+    private final FileChannel forwardChannel;
+    private final FileChannel reverseChannel;
+    private final FileChannel arenaChannel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] forward;
+    private final MappedByteBuffer[] reverse;
+    private volatile MappedByteBuffer[] arena;
+
+    private final long capacity; // slots per table, power of two
+    private final long mask;
+    private final long maxEntries;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private MappedUrlStore(Path directory, long expectedEntries) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.headerChannel = open("header.dat");
+        this.header = headerChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.nativeOrder());
+        if ((long) LONGS.getVolatile(header, H_MAGIC) == MAGIC) {
+            this.capacity = (long) LONGS.getVolatile(header, H_CAPACITY);
+        } else {
+            this.capacity = Long.highestOneBit(Math.max(16, expectedEntries * 10 / 7)) << 1;
+            LONGS.setVolatile(header, H_CAPACITY, capacity);
+            LONGS.setVolatile(header, H_SIZE, 0L);
+            LONGS.setVolatile(header, H_ARENA_END, 0L);
+            LONGS.setVolatile(header, H_MAX_ID, 0L);
+            LONGS.setVolatile(header, H_MAGIC, MAGIC);
+        }
+        this.mask = capacity - 1;
+        this.maxEntries = capacity * 9 / 10;
+        this.forwardChannel = open("forward.dat");
+        this.reverseChannel = open("reverse.dat");
+        this.arenaChannel = open("arena.dat");
+        this.forward = mapAll(forwardChannel, capacity * SLOT_BYTES);
+        this.reverse = mapAll(reverseChannel, capacity * SLOT_BYTES);
+        long arenaEnd = (long) LONGS.getVolatile(header, H_ARENA_END);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) (arenaEnd >>> CHUNK_SHIFT) + 1];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = map(arenaChannel, i * CHUNK_SIZE, CHUNK_SIZE);
+        }
+        this.arena = chunks;
+    }
+
+    // Opens the store in directory, creating it sized for expectedEntries if it does not exist yet
+    public static MappedUrlStore open(Path directory, long expectedEntries) {
+        try {
+            return new MappedUrlStore(directory, expectedEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open mapped store in " + directory, e);
+        }
+    }
+
+    @Override
+    public String get(long id) {
+        long slot = Fingerprint.mix(id) & mask;
+        for (long probe = 0; probe < capacity; probe++) {
+            long position = ((slot + probe) & mask) * SLOT_BYTES;
+            MappedByteBuffer chunk = forward[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            long key = (long) LONGS.getAcquire(chunk, offset);
+            if (key == 0) {
+                return null;
+            }
+            if (key == id + 1) {
+                long arenaOffset = (long) LONGS.get(chunk, offset + 8);
+                return new String(readRecord(arenaOffset), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        long fingerprint = Fingerprint.of(longUrl);
+        byte[] utf8 = null;
+        long slot = Fingerprint.mix(fingerprint) & mask;
+        for (long probe = 0; probe < capacity; probe++) {
+            long position = ((slot + probe) & mask) * SLOT_BYTES;
+            MappedByteBuffer chunk = reverse[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            long idPlusOne = (long) LONGS.getAcquire(chunk, offset + 8);
+            if (idPlusOne == 0) {
+                return -1;
+            }
+            if ((long) LONGS.get(chunk, offset) == fingerprint) {
+                // Fingerprint hit: confirm against the stored bytes, collisions keep probing
+                if (utf8 == null) {
+                    utf8 = longUrl.getBytes(StandardCharsets.UTF_8);
+                }
+                long arenaOffset = forwardOffset(idPlusOne - 1);
+                if (arenaOffset >= 0 && Arrays.equals(readRecord(arenaOffset), utf8)) {
+                    return idPlusOne - 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        long id = findId(longUrl);
+        if (id >= 0) {
+            return id;
+        }
+        writeLock.lock();
+        try {
+            id = findId(longUrl); // another writer may have won the race
+            if (id >= 0) {
+                return id;
+            }
+            id = newId.getAsLong();
+            insert(id, longUrl);
+            return id;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        writeLock.lock();
+        try {
+            if (forwardOffset(id) < 0) {
+                insert(id, longUrl);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEach(MappingConsumer action) {
+        for (long slot = 0; slot < capacity; slot++) {
+            long position = slot * SLOT_BYTES;
+            MappedByteBuffer chunk = forward[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            long key = (long) LONGS.getAcquire(chunk, offset);
+            if (key != 0) {
+                long arenaOffset = (long) LONGS.get(chunk, offset + 8);
+                action.accept(key - 1, new String(readRecord(arenaOffset), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return (long) LONGS.getAcquire(header, H_SIZE);
+    }
+
+    // Highest id ever stored, so a restarted service can continue its counter after it
+    public long maxId() {
+        return (long) LONGS.getAcquire(header, H_MAX_ID);
+    }
+
+    // Flushes dirty pages to disk
+    public void force() {
+        header.force();
+        for (MappedByteBuffer chunk : forward) chunk.force();
+        for (MappedByteBuffer chunk : reverse) chunk.force();
+        for (MappedByteBuffer chunk : arena) chunk.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        headerChannel.close();
+        forwardChannel.close();
+        reverseChannel.close();
+        arenaChannel.close();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Caller holds writeLock. Order: arena record, arena end, forward slot, reverse slot, size.
+    private void insert(long id, String longUrl) {
+        long size = (long) LONGS.get(header, H_SIZE);
+        if (size >= maxEntries) {
+            throw new IllegalStateException("Mapped store is full (" + size + " entries)");
+        }
+        byte[] utf8 = longUrl.getBytes(StandardCharsets.UTF_8);
+        long arenaOffset = appendRecord(utf8);
+
+        long slot = Fingerprint.mix(id) & mask;
+        while (true) {
+            long position = slot * SLOT_BYTES;
+            MappedByteBuffer chunk = forward[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            long key = (long) LONGS.get(chunk, offset);
+            if (key == 0 || key == id + 1) {
+                LONGS.set(chunk, offset + 8, arenaOffset);
+                LONGS.setRelease(chunk, offset, id + 1);
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        long fingerprint = Fingerprint.of(utf8, 0, utf8.length);
+        slot = Fingerprint.mix(fingerprint) & mask;
+        while (true) {
+            long position = slot * SLOT_BYTES;
+            MappedByteBuffer chunk = reverse[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            if ((long) LONGS.get(chunk, offset + 8) == 0) {
+                LONGS.set(chunk, offset, fingerprint);
+                LONGS.setRelease(chunk, offset + 8, id + 1);
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (id > (long) LONGS.get(header, H_MAX_ID)) {
+            LONGS.setRelease(header, H_MAX_ID, id);
+        }
+        LONGS.setRelease(header, H_SIZE, size + 1);
+    }
+
+    private long forwardOffset(long id) {
+        long slot = Fingerprint.mix(id) & mask;
+        for (long probe = 0; probe < capacity; probe++) {
+            long position = ((slot + probe) & mask) * SLOT_BYTES;
+            MappedByteBuffer chunk = forward[(int) (position >>> CHUNK_SHIFT)];
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            long key = (long) LONGS.getAcquire(chunk, offset);
+            if (key == 0) {
+                return -1;
+            }
+            if (key == id + 1) {
+                return (long) LONGS.get(chunk, offset + 8);
+            }
+        }
+        return -1;
+    }
+
+    private long appendRecord(byte[] utf8) {
+        long end = (long) LONGS.get(header, H_ARENA_END);
+        long recordSize = 4 + utf8.length;
+        if (recordSize > CHUNK_SIZE) {
+            throw new IllegalArgumentException("URL too long: " + utf8.length + " bytes");
+        }
+        if ((end & (CHUNK_SIZE - 1)) + recordSize > CHUNK_SIZE) {
+            end = (end + CHUNK_SIZE) & ~(CHUNK_SIZE - 1); // records never straddle chunks
+        }
+        MappedByteBuffer chunk = arenaChunk(end);
+        int offset = (int) (end & (CHUNK_SIZE - 1));
+        chunk.putInt(offset, utf8.length);
+        chunk.put(offset + 4, utf8);
+        LONGS.setRelease(header, H_ARENA_END, end + recordSize);
+        return end;
+    }
+
+    private byte[] readRecord(long arenaOffset) {
+        MappedByteBuffer chunk = arena[(int) (arenaOffset >>> CHUNK_SHIFT)];
+        int offset = (int) (arenaOffset & (CHUNK_SIZE - 1));
+        byte[] utf8 = new byte[chunk.getInt(offset)];
+        chunk.get(offset + 4, utf8);
+        return utf8;
+    }
+
+    private MappedByteBuffer arenaChunk(long position) {
+        int index = (int) (position >>> CHUNK_SHIFT);
+        MappedByteBuffer[] chunks = arena;
+        if (index >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, index + 1);
+            chunks[index] = map(arenaChannel, index * CHUNK_SIZE, CHUNK_SIZE);
+            arena = chunks;
+        }
+        return chunks[index];
+    }
+
+    private FileChannel open(String name) throws IOException {
+        return FileChannel.open(directory.resolve(name),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static MappedByteBuffer[] mapAll(FileChannel channel, long bytes) {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = map(channel, i * CHUNK_SIZE, Math.min(CHUNK_SIZE, bytes - i * CHUNK_SIZE));
+        }
+        return chunks;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
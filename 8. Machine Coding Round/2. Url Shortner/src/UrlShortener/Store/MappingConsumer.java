@@ -0,0 +1,6 @@
+package UrlShortener.Store;
+
+@FunctionalInterface
+public interface MappingConsumer {
+    void accept(long id, String longUrl);
+}
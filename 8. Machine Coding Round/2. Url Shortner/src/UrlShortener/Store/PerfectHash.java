@@ -0,0 +1,217 @@
+package UrlShortener.Store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Minimal perfect hash over a fixed set of long keys (BBHash): maps each of the n keys to its own
+// index in [0, n) using about 4 bits per key. Level i is a bit array of GAMMA * (keys left) bits;
+// a key whose level-i position no other remaining key shares sets that bit and stops there, the
+// colliding ones move on to level i + 1. A key's index is the number of set bits before its own.
+// The bits are stored in 64-byte blocks of [set bits before the block][7 bit words], so the rank
+// of a bit comes from the cache line holding the bit. The few keys still colliding after
+// MAX_LEVELS sit in a sorted fallback array after the ranked ones.
+//
+// Keys outside the set also get an index (or -1): callers confirm the key stored at that index.
+final class PerfectHash {
+    private static final double GAMMA = 2.0;
+    private static final int MAX_LEVELS = 32;
+    private static final long LEVEL_SEED = 0x9e3779b97f4a7c15L;
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_WORDS = BLOCK_LONGS - 1;
+
+    private final long keys;
+    private final long[] levelStarts; // first bit of each level
+    private final long[] levelSizes;  // bits per level
+    private final LongBuffer blocks;
+    private final LongBuffer fallback; // sorted
+    private final long ranked;         // keys placed in the levels
+
+    private PerfectHash(long keys, long[] levelSizes, LongBuffer blocks, LongBuffer fallback) {
+        this.keys = keys;
+        this.levelSizes = levelSizes;
+        this.levelStarts = new long[levelSizes.length];
+        for (int level = 1; level < levelSizes.length; level++) {
+            levelStarts[level] = levelStarts[level - 1] + levelSizes[level - 1];
+        }
+        this.blocks = blocks;
+        this.fallback = fallback;
+        this.ranked = keys - fallback.capacity();
+    }
+
+    // keys[0, count) must be distinct
+    static PerfectHash build(long[] keys, int count) {
+        long[] remaining = Arrays.copyOf(keys, count);
+        int left = count;
+        List<long[]> levels = new ArrayList<>();
+        while (left > 0 && levels.size() < MAX_LEVELS) {
+            int level = levels.size();
+            long size = Math.max(64, ((long) Math.ceil(GAMMA * left) + 63) & ~63L);
+            long[] unique = new long[(int) (size >>> 6)];
+            long[] collided = new long[unique.length];
+            for (int i = 0; i < left; i++) {
+                long position = position(remaining[i], level, size);
+                int word = (int) (position >>> 6);
+                if ((unique[word] & (1L << position)) != 0) {
+                    collided[word] |= 1L << position;
+                } else {
+                    unique[word] |= 1L << position;
+                }
+            }
+            int next = 0;
+            for (int i = 0; i < left; i++) {
+                long position = position(remaining[i], level, size);
+                if ((collided[(int) (position >>> 6)] & (1L << position)) != 0) {
+                    remaining[next++] = remaining[i];
+                }
+            }
+            for (int word = 0; word < unique.length; word++) {
+                unique[word] &= ~collided[word];
+            }
+            levels.add(unique);
+            left = next;
+        }
+
+        long[] levelSizes = new long[levels.size()];
+        int words = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            levelSizes[level] = (long) levels.get(level).length << 6;
+            words += levels.get(level).length;
+        }
+        long[] blocks = new long[blockCount(words) * BLOCK_LONGS];
+        int word = 0;
+        for (long[] level : levels) {
+            for (long bits : level) {
+                blocks[physical(word++)] = bits;
+            }
+        }
+        long set = 0;
+        for (int block = 0; block < blocks.length; block += BLOCK_LONGS) {
+            blocks[block] = set;
+            for (int w = 1; w < BLOCK_LONGS; w++) {
+                set += Long.bitCount(blocks[block + w]);
+            }
+        }
+        long[] fallback = Arrays.copyOf(remaining, left);
+        Arrays.sort(fallback);
+        return new PerfectHash(count, levelSizes, LongBuffer.wrap(blocks), LongBuffer.wrap(fallback));
+    }
+
+    // Index of key in [0, n); an arbitrary index or -1 for keys outside the set
+    long index(long key) {
+        for (int level = 0; level < levelSizes.length; level++) {
+            long bit = levelStarts[level] + position(key, level, levelSizes[level]);
+            if ((blocks.get(physical((int) (bit >>> 6))) & (1L << bit)) != 0) {
+                return rank(bit);
+            }
+        }
+        int low = 0;
+        int high = fallback.capacity() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long candidate = fallback.get(middle);
+            if (candidate < key) {
+                low = middle + 1;
+            } else if (candidate > key) {
+                high = middle - 1;
+            } else {
+                return ranked + middle;
+            }
+        }
+        return -1;
+    }
+
+    long keys() {
+        return keys;
+    }
+
+    int levels() {
+        return levelSizes.length;
+    }
+
+    double bitsPerKey() {
+        return keys == 0 ? 0 : bytes() * 8.0 / keys;
+    }
+
+    // Serialized size, a multiple of 64 so whatever follows stays cache-line aligned as well
+    long bytes() {
+        long longs = headerLongs(levelSizes.length) + blocks.capacity() + fallback.capacity();
+        return 8 * ((longs + BLOCK_LONGS - 1) / BLOCK_LONGS * BLOCK_LONGS);
+    }
+
+    // [long keys][long levels][long fallback keys][long bits per level]* (padding to 64 bytes)
+    // [blocks][fallback](padding). Blocks fall on cache lines when the hash starts 64-byte aligned.
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(keys);
+        out.writeLong(levelSizes.length);
+        out.writeLong(fallback.capacity());
+        for (long size : levelSizes) {
+            out.writeLong(size);
+        }
+        for (int i = 3 + levelSizes.length; i < headerLongs(levelSizes.length); i++) {
+            out.writeLong(0);
+        }
+        for (int i = 0; i < blocks.capacity(); i++) {
+            out.writeLong(blocks.get(i));
+        }
+        for (int i = 0; i < fallback.capacity(); i++) {
+            out.writeLong(fallback.get(i));
+        }
+        for (long i = 8L * (headerLongs(levelSizes.length) + blocks.capacity() + fallback.capacity()); i < bytes(); i += 8) {
+            out.writeLong(0);
+        }
+    }
+
+    // Reads in place: the arrays stay views over buffer (e.g. a mapped file region)
+    static PerfectHash read(ByteBuffer buffer) {
+        LongBuffer longs = buffer.asLongBuffer();
+        long keys = longs.get(0);
+        int levels = (int) longs.get(1);
+        int fallbackKeys = (int) longs.get(2);
+        long[] levelSizes = new long[levels];
+        int words = 0;
+        for (int level = 0; level < levels; level++) {
+            levelSizes[level] = longs.get(3 + level);
+            words += (int) (levelSizes[level] >>> 6);
+        }
+        int at = headerLongs(levels);
+        int blockLongs = blockCount(words) * BLOCK_LONGS;
+        return new PerfectHash(keys, levelSizes, longs.slice(at, blockLongs), longs.slice(at + blockLongs, fallbackKeys));
+    }
+
+    private long rank(long bit) {
+        int word = (int) (bit >>> 6);
+        int block = word / BLOCK_WORDS * BLOCK_LONGS;
+        int target = block + 1 + word % BLOCK_WORDS;
+        long rank = blocks.get(block);
+        for (int w = block + 1; w < target; w++) {
+            rank += Long.bitCount(blocks.get(w));
+        }
+        return rank + Long.bitCount(blocks.get(target) & ((1L << bit) - 1));
+    }
+
+    // Position of bit word w in blocks
+    private static int physical(int word) {
+        return word / BLOCK_WORDS * BLOCK_LONGS + 1 + word % BLOCK_WORDS;
+    }
+
+    private static int blockCount(int words) {
+        return (words + BLOCK_WORDS - 1) / BLOCK_WORDS;
+    }
+
+    private static int headerLongs(int levels) {
+        return (3 + levels + BLOCK_LONGS - 1) / BLOCK_LONGS * BLOCK_LONGS;
+    }
+
+    // Uniform position in [0, size) without a division
+    private static long position(long key, int level, long size) {
+        long hash = Fingerprint.mix(key + LEVEL_SEED * (level + 1));
+        return Math.multiplyHigh(hash >>> 1, size << 1);
+    }
+}
@@ -0,0 +1,81 @@
+package UrlShortener.Store;
+
+import java.util.Arrays;
+
+// Bloom filter that grows instead of degrading: when the newest filter reaches its capacity a
+// larger one (x2) with a tighter rate (x0.8) is added. The compound false-positive rate stays
+// below the configured target however many entries arrive (Almeida et al.).
+public class ScalableBloomFilter {
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.8;
+
+    private volatile BloomFilter[] filters;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.filters = new BloomFilter[] {
+            new BloomFilter(initialCapacity, falsePositiveRate * (1 - TIGHTENING))
+        };
+    }
+
+    public void add(long fingerprint) {
+        BloomFilter[] current = filters;
+        BloomFilter newest = current[current.length - 1];
+        if (newest.isFull()) {
+            newest = grow(current);
+        }
+        newest.add(fingerprint);
+    }
+
+    public boolean mightContain(long fingerprint) {
+        for (BloomFilter filter : filters) {
+            if (filter.mightContain(fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Bits set / bits allocated over all filters
+    public double saturation() {
+        long set = 0;
+        long total = 0;
+        for (BloomFilter filter : filters) {
+            set += filter.bitsSet();
+            total += filter.bitCount();
+        }
+        return (double) set / total;
+    }
+
+    public double expectedFalsePositiveRate() {
+        double allNegative = 1;
+        for (BloomFilter filter : filters) {
+            allNegative *= 1 - filter.expectedFalsePositiveRate();
+        }
+        return 1 - allNegative;
+    }
+
+    public int filterCount() {
+        return filters.length;
+    }
+
+    public long bitCount() {
+        long total = 0;
+        for (BloomFilter filter : filters) {
+            total += filter.bitCount();
+        }
+        return total;
+    }
+
+    private synchronized BloomFilter grow(BloomFilter[] seen) {
+        BloomFilter[] current = filters;
+        if (current != seen) {
+            return current[current.length - 1]; // someone else grew it
+        }
+        BloomFilter newest = current[current.length - 1];
+        BloomFilter next = new BloomFilter(newest.capacity() * GROWTH, newest.falsePositiveRate() * TIGHTENING);
+        BloomFilter[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = next;
+        filters = grown;
+        return next;
+    }
+}
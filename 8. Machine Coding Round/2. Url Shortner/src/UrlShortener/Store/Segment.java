@@ -0,0 +1,355 @@
+package UrlShortener.Store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+import UrlShortener.Codec.Fingerprint;
+
+// Immutable sorted segment of a TieredUrlStore: segment-<number>.sst
+//   data     ([long id][int length][UTF-8 bytes])* sorted by id, length -1 = tombstone
+//   reverse  ([long fingerprint][long id])* for live records, sorted by the fingerprint's top 32 bits
+//   index    sparse id index (first id + offset of every ID_BLOCK-th record), sparse reverse index
+//            (top 32 bits of every FP_BLOCK-th entry), Bloom filter of fingerprints
+//   footer   minId, maxId, records, live records, reverse offset, index offset, 0, magic
+// Only the sparse indexes and the Bloom filter are kept in memory; lookups read one block with a
+// positional read. Ids need no filter: the [minId, maxId] range already prunes segments, since
+// ids grow with time. The filter is over fingerprints, so a new URL skips every segment's reverse
+// section. Written to a temp file, fsynced and renamed.
+final class Segment implements Closeable {
+    static final byte[] TOMBSTONE = new byte[0]; // compared by identity
+    private static final long MAGIC = 0x55524c5345474d54L; // "URLSEGMT"
+    private static final int FOOTER_BYTES = 64;
+    private static final int ID_BLOCK = 64;
+    private static final int FP_BLOCK = 128;
+    private static final int FP_ENTRY_BYTES = 16;
+    private static final int BUFFER = 1 << 20;
+
+    // Source of (id, value) pairs in ascending id order; value TOMBSTONE marks a deleted id
+    interface Cursor {
+        boolean advance() throws IOException;
+        long id();
+        byte[] value();
+
+        // Releases the cursor before it is exhausted
+        default void close() throws IOException {
+        }
+    }
+
+    final long number;
+    private final Path path;
+    private volatile FileChannel channel;
+    private volatile boolean retired;
+    final long minId;
+    final long maxId;
+    final long records;
+    final long liveRecords;
+    private final long reverseOffset;
+    private final long[] blockIds;
+    private final long[] blockOffsets;
+    private final int[] fpBlockKeys;
+    private final long fpEntries;
+    private final BloomFilter bloom;
+
+    private Segment(long number, Path path) throws IOException {
+        this.number = number;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        ByteBuffer footer = read(size - FOOTER_BYTES, FOOTER_BYTES);
+        this.minId = footer.getLong();
+        this.maxId = footer.getLong();
+        this.records = footer.getLong();
+        this.liveRecords = footer.getLong();
+        this.reverseOffset = footer.getLong();
+        long indexOffset = footer.getLong();
+        footer.getLong();
+        if (footer.getLong() != MAGIC) {
+            channel.close();
+            throw new IOException("Not a segment: " + path);
+        }
+        this.fpEntries = (indexOffset - reverseOffset) / FP_ENTRY_BYTES;
+
+        ByteBuffer index = read(indexOffset, (int) (size - FOOTER_BYTES - indexOffset));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(index.array()));
+        int blocks = in.readInt();
+        this.blockIds = new long[blocks];
+        this.blockOffsets = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockIds[i] = in.readLong();
+            blockOffsets[i] = in.readLong();
+        }
+        int fpBlocks = in.readInt();
+        this.fpBlockKeys = new int[fpBlocks];
+        for (int i = 0; i < fpBlocks; i++) {
+            fpBlockKeys[i] = in.readInt();
+        }
+        this.bloom = BloomFilter.readFrom(in);
+    }
+
+    static Segment open(Path directory, long number) throws IOException {
+        return new Segment(number, path(directory, number));
+    }
+
+    static Path path(Path directory, long number) {
+        return directory.resolve(String.format("segment-%020d.sst", number));
+    }
+
+    // Value stored for id: its UTF-8 bytes, TOMBSTONE, or null when this segment has no record
+    byte[] get(long id) throws IOException {
+        if (id < minId || id > maxId) {
+            return null;
+        }
+        int block = Arrays.binarySearch(blockIds, id);
+        if (block < 0) {
+            block = -block - 2; // last block starting before id
+        }
+        long start = blockOffsets[block];
+        long end = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : reverseOffset;
+        ByteBuffer data = read(start, (int) (end - start));
+        while (data.hasRemaining()) {
+            long recordId = data.getLong();
+            int length = data.getInt();
+            if (recordId == id) {
+                if (length < 0) {
+                    return TOMBSTONE;
+                }
+                byte[] utf8 = new byte[length];
+                data.get(utf8);
+                return utf8;
+            }
+            if (recordId > id) {
+                return null;
+            }
+            data.position(data.position() + Math.max(0, length));
+        }
+        return null;
+    }
+
+    // First id with this fingerprint that confirm accepts (confirm checks the URL itself), or -1
+    long findId(long fingerprint, LongPredicate confirm) throws IOException {
+        if (fpEntries == 0 || !bloom.mightContain(fingerprint)) {
+            return -1;
+        }
+        int key = (int) (fingerprint >>> 32);
+        int block = Arrays.binarySearch(fpBlockKeys, key);
+        block = block < 0 ? -block - 2 : block;
+        while (block > 0 && fpBlockKeys[block] == key) {
+            block--; // the run of equal keys may start in an earlier block
+        }
+        for (block = Math.max(0, block); block < fpBlockKeys.length; block++) {
+            long first = (long) block * FP_BLOCK;
+            int count = (int) Math.min(FP_BLOCK, fpEntries - first);
+            ByteBuffer entries = read(reverseOffset + first * FP_ENTRY_BYTES, count * FP_ENTRY_BYTES);
+            for (int i = 0; i < count; i++) {
+                long candidate = entries.getLong();
+                long id = entries.getLong();
+                int candidateKey = (int) (candidate >>> 32);
+                if (candidateKey > key) {
+                    return -1;
+                }
+                if (candidate == fingerprint && confirm.test(id)) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Sequential reader over the data section, on its own stream so it never disturbs lookups.
+    // The file is opened here: once open, the stream keeps reading it even if compaction deletes it.
+    Cursor scan() throws IOException {
+        InputStream file = Files.newInputStream(path);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file, BUFFER));
+        return new Cursor() {
+            private long remaining = records;
+            private long id;
+            private byte[] value;
+
+            @Override
+            public boolean advance() throws IOException {
+                if (remaining-- <= 0) {
+                    in.close();
+                    return false;
+                }
+                id = in.readLong();
+                int length = in.readInt();
+                if (length < 0) {
+                    value = TOMBSTONE;
+                } else {
+                    value = new byte[length];
+                    in.readFully(value);
+                }
+                return true;
+            }
+
+            @Override
+            public long id() {
+                return id;
+            }
+
+            @Override
+            public byte[] value() {
+                return value;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+
+    long fileSize() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Compaction merged it away: readers that still hold it get ClosedChannelException and retry
+    void delete() throws IOException {
+        retired = true;
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    // Writes source (ascending ids, each at most once) as segment number. maxRecords bounds the
+    // number of records and sizes the reverse section buffers (24 bytes per record).
+    static Segment write(Path directory, long number, Cursor source, long maxRecords, boolean dropTombstones)
+            throws IOException {
+        Path target = path(directory, number);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, maxRecords));
+        long[] fingerprints = new long[capacity];
+        long[] ids = new long[capacity];
+        long[] blockIds = new long[capacity / ID_BLOCK + 1];
+        long[] blockOffsets = new long[blockIds.length];
+        int blocks = 0;
+        long records = 0, live = 0, minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE, offset = 0;
+
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER));
+            while (source.advance()) {
+                byte[] value = source.value();
+                if (value == TOMBSTONE && dropTombstones) {
+                    continue;
+                }
+                long id = source.id();
+                if (records % ID_BLOCK == 0) {
+                    blockIds[blocks] = id;
+                    blockOffsets[blocks++] = offset;
+                }
+                out.writeLong(id);
+                if (value == TOMBSTONE) {
+                    out.writeInt(-1);
+                    offset += 12;
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                    offset += 12 + value.length;
+                    fingerprints[(int) live] = Fingerprint.of(value, 0, value.length);
+                    ids[(int) live++] = id;
+                }
+                minId = Math.min(minId, id);
+                maxId = Math.max(maxId, id);
+                records++;
+            }
+            if (records == 0) {
+                minId = maxId = -1;
+            }
+
+            // Sort (top 32 bits of fingerprint, position) pairs packed into one long each
+            long reverseOffset = offset;
+            long[] order = new long[(int) live];
+            for (int i = 0; i < live; i++) {
+                order[i] = (fingerprints[i] >>> 32) << 32 | i;
+            }
+            Arrays.sort(order);
+            int fpBlocks = (int) ((live + FP_BLOCK - 1) / FP_BLOCK);
+            int[] fpBlockKeys = new int[fpBlocks];
+            BloomFilter bloom = new BloomFilter(Math.max(1, live), 0.01);
+            for (int i = 0; i < live; i++) {
+                int position = (int) order[i];
+                if (i % FP_BLOCK == 0) {
+                    fpBlockKeys[i / FP_BLOCK] = (int) (fingerprints[position] >>> 32);
+                }
+                out.writeLong(fingerprints[position]);
+                out.writeLong(ids[position]);
+                bloom.add(fingerprints[position]);
+            }
+            offset += live * FP_ENTRY_BYTES;
+
+            long indexOffset = offset;
+            out.writeInt(blocks);
+            for (int i = 0; i < blocks; i++) {
+                out.writeLong(blockIds[i]);
+                out.writeLong(blockOffsets[i]);
+            }
+            out.writeInt(fpBlocks);
+            for (int key : fpBlockKeys) {
+                out.writeInt(key);
+            }
+            bloom.writeTo(out);
+
+            out.writeLong(minId);
+            out.writeLong(maxId);
+            out.writeLong(records);
+            out.writeLong(live);
+            out.writeLong(reverseOffset);
+            out.writeLong(indexOffset);
+            out.writeLong(0);
+            out.writeLong(MAGIC);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(directory, number);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            FileChannel current = channel;
+            try {
+                if (current.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Truncated segment " + path);
+                }
+            } catch (ClosedChannelException e) {
+                if (retired) {
+                    throw e;
+                }
+                reopen(current); // an interrupted reader closes the channel for everyone
+                if (e instanceof ClosedByInterruptException) {
+                    throw e;
+                }
+            }
+        }
+        return buffer.flip();
+    }
+
+    private synchronized void reopen(FileChannel closed) throws IOException {
+        if (channel == closed && !retired) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+    }
+}
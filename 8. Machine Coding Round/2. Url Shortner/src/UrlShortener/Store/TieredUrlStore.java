@@ -0,0 +1,635 @@
+package UrlShortener.Store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import UrlShortener.Codec.Fingerprint;
+
+// LSM-style store: only recent mappings live on the heap.
+//   memtable  - skip list id -> URL plus hash map URL -> id; takes every write
+//   segments  - immutable sorted files (see Segment) written when the memtable fills up
+//   MANIFEST  - ordered segment list, live mapping count and highest id, replaced atomically
+// Reads go memtable -> memtables being flushed -> segments, newest first. A segment keeps only
+// its sparse indexes and a Bloom filter in memory, so cold links cost disk (page cache), not heap.
+//
+// Flushes and compactions run on one background thread. Compaction is size-tiered: FAN_IN or
+// more adjacent segments of the same tier (size ~ memtable * FAN_IN^tier) are merged, newest
+// record winning; tombstones are dropped once the merge reaches the oldest segment.
+// Readers never lock: they work on an immutable State snapshot and simply retry if compaction
+// closes a segment under them.
+//
+// Flushed segments are durable. Mappings still in the memtable are not: pair this store with a
+// journal (PersistenceManager replays it with put) or call flush() before shutting down.
+public class TieredUrlStore implements UrlStore, Closeable {
+    private static final String MANIFEST = "MANIFEST";
+    private static final long MAGIC = 0x55524c4d414e4946L; // "URLMANIF"
+    private static final int FAN_IN = 4;
+
+    private final Path directory;
+    private final int memtableEntries;
+    private final ReentrantLock lock = new ReentrantLock(); // writers and state swaps
+    private final ExecutorService background;
+    private volatile State state;
+    private long flushedLive;     // live mappings in segments, guarded by lock
+    private long nextSegment;     // guarded by lock
+    private final AtomicLong maxId = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    private TieredUrlStore(Path directory, int memtableEntries) throws IOException {
+        this.directory = directory;
+        this.memtableEntries = memtableEntries;
+        Files.createDirectories(directory);
+        List<Segment> segments = new ArrayList<>();
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest)))) {
+                if (in.readLong() != MAGIC) {
+                    throw new IOException("Not a manifest: " + manifest);
+                }
+                flushedLive = in.readLong();
+                maxId.set(in.readLong());
+                nextSegment = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    segments.add(Segment.open(directory, in.readLong()));
+                }
+            }
+        }
+        deleteOrphans(segments);
+        this.state = new State(new Memtable(), Collections.emptyList(), segments);
+        this.background = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "tiered-store-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Opens (or creates) the store in directory; memtableEntries mappings are kept on the heap
+    // before they are flushed to a segment
+    public static TieredUrlStore open(Path directory, int memtableEntries) {
+        if (memtableEntries <= 0) {
+            throw new IllegalArgumentException("memtableEntries must be positive");
+        }
+        try {
+            return new TieredUrlStore(directory, memtableEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open tiered store in " + directory, e);
+        }
+    }
+
+    @Override
+    public String get(long id) {
+        byte[] utf8 = lookup(id);
+        return utf8 == null ? null : new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long findId(String longUrl) {
+        long fingerprint = Fingerprint.of(longUrl);
+        byte[][] utf8 = {null};
+        while (true) {
+            State current = state;
+            Long id = current.active.reverse.get(longUrl);
+            if (id != null) {
+                return id;
+            }
+            for (Memtable memtable : current.flushing) {
+                id = memtable.reverse.get(longUrl);
+                if (id != null && lookup(id) != null) { // not deleted by a newer tombstone
+                    return id;
+                }
+            }
+            try {
+                for (Segment segment : current.segments) {
+                    long found = segment.findId(fingerprint, candidate -> {
+                        byte[] stored = lookup(candidate); // newest version of the id, not this segment's
+                        if (stored == null) {
+                            return false;
+                        }
+                        if (utf8[0] == null) {
+                            utf8[0] = longUrl.getBytes(StandardCharsets.UTF_8);
+                        }
+                        return Arrays.equals(stored, utf8[0]);
+                    });
+                    if (found >= 0) {
+                        return found;
+                    }
+                }
+                return -1;
+            } catch (ClosedByInterruptException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClosedChannelException e) {
+                // A compaction retired a segment mid-lookup; retry on the new state
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public long getOrAssign(String longUrl, LongSupplier newId) {
+        long id = findId(longUrl);
+        if (id >= 0) {
+            return id;
+        }
+        lock.lock();
+        try {
+            id = findId(longUrl); // another writer may have won the race
+            if (id >= 0) {
+                return id;
+            }
+            id = newId.getAsLong();
+            insert(id, longUrl);
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(long id, String longUrl) {
+        lock.lock();
+        try {
+            if (lookup(id) == null) {
+                insert(id, longUrl);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes a tombstone; the record and the tombstone disappear when compaction reaches the oldest segment
+    @Override
+    public boolean remove(long id) {
+        lock.lock();
+        try {
+            String longUrl = get(id);
+            if (longUrl == null) {
+                return false;
+            }
+            Memtable active = state.active;
+            active.forward.put(id, Memtable.TOMBSTONE);
+            active.reverse.remove(longUrl, id);
+            active.delta.decrementAndGet();
+            maybeRotate();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Merged view in id order, newest version of each id. Every segment file is opened before the
+    // scan starts; one deleted by a compaction that finished after the state was read means the
+    // scan restarts on the new state. Open files stay readable after compaction deletes them.
+    @Override
+    public void forEach(MappingConsumer action) {
+        while (true) {
+            State current = state;
+            List<Segment.Cursor> sources = new ArrayList<>();
+            try {
+                sources.add(current.active.cursor());
+                for (Memtable memtable : current.flushing) {
+                    sources.add(memtable.cursor());
+                }
+                try {
+                    for (Segment segment : current.segments) {
+                        sources.add(segment.scan());
+                    }
+                } catch (NoSuchFileException e) {
+                    if (state == current) {
+                        throw e;
+                    }
+                    continue; // retired by a compaction; retry on the new state
+                }
+                Segment.Cursor merged = merge(sources);
+                while (merged.advance()) {
+                    if (merged.value() != Segment.TOMBSTONE) {
+                        action.accept(merged.id(), new String(merged.value(), StandardCharsets.UTF_8));
+                    }
+                }
+                return;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                closeAll(sources);
+            }
+        }
+    }
+
+    private static void closeAll(List<Segment.Cursor> cursors) {
+        for (Segment.Cursor cursor : cursors) {
+            try {
+                cursor.close();
+            } catch (IOException e) {
+                System.err.println("Cannot close segment scan: " + e);
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.lock();
+        try {
+            long size = flushedLive + state.active.delta.get();
+            for (Memtable memtable : state.flushing) {
+                size += memtable.delta.get();
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Highest id ever stored, so a restarted service can continue its counter after it
+    public long maxId() {
+        return maxId.get();
+    }
+
+    // Writes the memtable to a segment and waits for it (and any compaction it triggers)
+    public void flush() {
+        Future<?> done;
+        lock.lock();
+        try {
+            if (state.active.entries.get() > 0) {
+                rotate();
+            }
+            done = background.submit(() -> { });
+        } finally {
+            lock.unlock();
+        }
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Background flush failed", e.getCause());
+        }
+    }
+
+    public int segmentCount() {
+        return state.segments.size();
+    }
+
+    public long memtableEntries() {
+        State current = state;
+        long entries = current.active.entries.get();
+        for (Memtable memtable : current.flushing) {
+            entries += memtable.entries.get();
+        }
+        return entries;
+    }
+
+    public long compactions() {
+        return compactions.get();
+    }
+
+    public long diskBytes() {
+        long bytes = 0;
+        try {
+            for (Segment segment : state.segments) {
+                bytes += segment.fileSize();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        background.shutdown();
+        for (Segment segment : state.segments) {
+            segment.close();
+        }
+    }
+
+    // Newest version of id across all tiers; null when absent or deleted
+    private byte[] lookup(long id) {
+        while (true) {
+            State current = state;
+            String longUrl = current.active.forward.get(id);
+            if (longUrl == null) {
+                for (Memtable memtable : current.flushing) {
+                    longUrl = memtable.forward.get(id);
+                    if (longUrl != null) {
+                        break;
+                    }
+                }
+            }
+            if (longUrl != null) {
+                return longUrl == Memtable.TOMBSTONE ? null : longUrl.getBytes(StandardCharsets.UTF_8);
+            }
+            try {
+                for (Segment segment : current.segments) {
+                    byte[] utf8 = segment.get(id);
+                    if (utf8 != null) {
+                        return utf8 == Segment.TOMBSTONE ? null : utf8;
+                    }
+                }
+                return null;
+            } catch (ClosedByInterruptException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClosedChannelException e) {
+                // Retired by a compaction; retry on the new state
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Caller holds lock
+    private void insert(long id, String longUrl) {
+        Memtable active = state.active;
+        active.forward.put(id, longUrl); // visible before the reverse entry is published
+        active.reverse.put(longUrl, id);
+        active.delta.incrementAndGet();
+        maxId.accumulateAndGet(id, Math::max);
+        maybeRotate();
+    }
+
+    // Caller holds lock
+    private void maybeRotate() {
+        if (state.active.entries.incrementAndGet() >= memtableEntries) {
+            rotate();
+        }
+    }
+
+    // Caller holds lock: freezes the active memtable and queues its flush
+    private void rotate() {
+        State current = state;
+        Memtable frozen = current.active;
+        List<Memtable> flushing = new ArrayList<>(current.flushing.size() + 1);
+        flushing.add(frozen);
+        flushing.addAll(current.flushing);
+        state = new State(new Memtable(), flushing, current.segments);
+        long number = nextSegment++;
+        background.execute(() -> {
+            try {
+                flushMemtable(frozen, number);
+                compact();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Tiered store flush failed: " + e);
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    // Background thread
+    private void flushMemtable(Memtable frozen, long number) throws IOException {
+        Segment segment = Segment.write(directory, number, frozen.cursor(), frozen.forward.size(), false);
+        lock.lock();
+        try {
+            State current = state;
+            List<Memtable> flushing = new ArrayList<>(current.flushing);
+            flushing.remove(frozen);
+            List<Segment> segments = new ArrayList<>(current.segments.size() + 1);
+            segments.add(segment);
+            segments.addAll(current.segments);
+            flushedLive += frozen.delta.get();
+            writeManifest(segments);
+            state = new State(current.active, flushing, segments);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Background thread: merges the newest run of FAN_IN+ adjacent same-tier segments, repeatedly
+    private void compact() throws IOException {
+        while (true) {
+            List<Segment> segments = state.segments; // only this thread replaces segments
+            int runStart = -1, runEnd = -1;
+            for (int i = 0; i < segments.size(); ) {
+                int tier = tier(segments.get(i));
+                int j = i;
+                while (j < segments.size() && tier(segments.get(j)) == tier) {
+                    j++;
+                }
+                if (j - i >= FAN_IN) {
+                    runStart = i;
+                    runEnd = j;
+                    break;
+                }
+                i = j;
+            }
+            if (runStart < 0) {
+                return;
+            }
+
+            List<Segment> run = segments.subList(runStart, runEnd);
+            List<Segment.Cursor> sources = new ArrayList<>();
+            long records = 0;
+            for (Segment segment : run) {
+                sources.add(segment.scan());
+                records += segment.records;
+            }
+            boolean reachesOldest = runEnd == segments.size();
+            long number;
+            lock.lock();
+            try {
+                number = nextSegment++;
+            } finally {
+                lock.unlock();
+            }
+            Segment merged = Segment.write(directory, number, merge(sources), records, reachesOldest);
+
+            List<Segment> retired = new ArrayList<>(run);
+            lock.lock();
+            try {
+                State current = state;
+                List<Segment> next = new ArrayList<>(current.segments);
+                int position = next.indexOf(retired.get(0));
+                next.subList(position, position + retired.size()).clear();
+                next.add(position, merged);
+                writeManifest(next);
+                state = new State(current.active, current.flushing, next);
+            } finally {
+                lock.unlock();
+            }
+            for (Segment segment : retired) {
+                segment.delete(); // in-flight readers see ClosedChannelException and retry
+            }
+            compactions.incrementAndGet();
+        }
+    }
+
+    private int tier(Segment segment) {
+        long units = Math.max(1, segment.records / memtableEntries);
+        int tier = 0;
+        while (units >= FAN_IN) {
+            units /= FAN_IN;
+            tier++;
+        }
+        return tier;
+    }
+
+    // Caller holds lock
+    private void writeManifest(List<Segment> segments) throws IOException {
+        Path target = directory.resolve(MANIFEST);
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeLong(MAGIC);
+            out.writeLong(flushedLive);
+            out.writeLong(maxId.get());
+            out.writeLong(nextSegment);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeLong(segment.number);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Segment files not in the manifest are leftovers of a crash during flush or compaction
+    private void deleteOrphans(List<Segment> live) throws IOException {
+        List<Path> keep = new ArrayList<>();
+        for (Segment segment : live) {
+            keep.add(Segment.path(directory, segment.number));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if ((name.startsWith("segment-") && !keep.contains(file)) || name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // k-way merge of id-ordered cursors; sources earlier in the list are newer and win on equal ids
+    private static Segment.Cursor merge(List<Segment.Cursor> sources) throws IOException {
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> {
+            int byId = Long.compare(sources.get(a[0]).id(), sources.get(b[0]).id());
+            return byId != 0 ? byId : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).advance()) {
+                heap.add(new int[] {i});
+            }
+        }
+        return new Segment.Cursor() {
+            private long id;
+            private byte[] value;
+
+            @Override
+            public boolean advance() throws IOException {
+                int[] top = heap.poll();
+                if (top == null) {
+                    return false;
+                }
+                Segment.Cursor newest = sources.get(top[0]);
+                id = newest.id();
+                value = newest.value();
+                reinsert(top);
+                while (!heap.isEmpty() && sources.get(heap.peek()[0]).id() == id) {
+                    reinsert(heap.poll()); // older versions of the same id
+                }
+                return true;
+            }
+
+            private void reinsert(int[] entry) throws IOException {
+                if (sources.get(entry[0]).advance()) {
+                    heap.add(entry);
+                }
+            }
+
+            @Override
+            public long id() {
+                return id;
+            }
+
+            @Override
+            public byte[] value() {
+                return value;
+            }
+        };
+    }
+
+    private static final class State {
+        final Memtable active;
+        final List<Memtable> flushing;  // newest first
+        final List<Segment> segments;   // newest first
+
+        State(Memtable active, List<Memtable> flushing, List<Segment> segments) {
+            this.active = active;
+            this.flushing = Collections.unmodifiableList(flushing);
+            this.segments = Collections.unmodifiableList(segments);
+        }
+    }
+
+    private static final class Memtable {
+        static final String TOMBSTONE = new String("<deleted>"); // compared by identity
+
+        final ConcurrentSkipListMap<Long, String> forward = new ConcurrentSkipListMap<>();
+        final ConcurrentHashMap<String, Long> reverse = new ConcurrentHashMap<>();
+        final AtomicLong entries = new AtomicLong(); // writes, for the flush threshold
+        final AtomicLong delta = new AtomicLong();   // live mappings added minus removed
+
+        // Weakly consistent while the memtable is active; exact once it is frozen
+        Segment.Cursor cursor() {
+            Iterator<Map.Entry<Long, String>> iterator = forward.entrySet().iterator();
+            return new Segment.Cursor() {
+                private long id;
+                private byte[] value;
+
+                @Override
+                public boolean advance() {
+                    if (!iterator.hasNext()) {
+                        return false;
+                    }
+                    Map.Entry<Long, String> entry = iterator.next();
+                    id = entry.getKey();
+                    value = entry.getValue() == TOMBSTONE ? Segment.TOMBSTONE : entry.getValue().getBytes(StandardCharsets.UTF_8);
+                    return true;
+                }
+
+                @Override
+                public long id() {
+                    return id;
+                }
+
+                @Override
+                public byte[] value() {
+                    return value;
+                }
+            };
+        }
+    }
+}
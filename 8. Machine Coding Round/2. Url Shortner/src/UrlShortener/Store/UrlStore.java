@@ -0,0 +1,53 @@
+package UrlShortener.Store;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+// Permanent storage for id <-> long URL mappings
+public interface UrlStore {
+    String get(long id); // null when the id is unknown
+
+    long findId(String longUrl); // -1 when the URL was never shortened
+
+    // Bulk findId: ids[i] receives the id of longUrls.get(i), or -1. Stores with a round trip per
+    // lookup should override this.
+    default void findIds(List<String> longUrls, long[] ids) {
+        for (int i = 0; i < longUrls.size(); i++) {
+            ids[i] = findId(longUrls.get(i));
+        }
+    }
+
+    // Returns the id already mapped to longUrl, or maps it to a fresh id taken from newId.
+    // Must be atomic: two concurrent calls for the same URL return the same id. newId is called
+    // at most once; its id goes unused when a concurrent call maps the URL first.
+    long getOrAssign(String longUrl, LongSupplier newId);
+
+    // Bulk getOrAssign: ids[i] receives the id of longUrls.get(i). Stores that can batch their
+    // writes (one round trip / one lock for many URLs) should override this.
+    default void getOrAssignAll(List<String> longUrls, LongSupplier newId, long[] ids) {
+        for (int i = 0; i < longUrls.size(); i++) {
+            ids[i] = getOrAssign(longUrls.get(i), newId);
+        }
+    }
+
+    // Stores a mapping whose id was decided elsewhere (recovery, import). Idempotent.
+    void put(long id, String longUrl);
+
+    // Bulk put: ids[i] -> longUrls.get(i). Stores with a round trip per write should override this.
+    default void putAll(long[] ids, List<String> longUrls) {
+        for (int i = 0; i < longUrls.size(); i++) {
+            put(ids[i], longUrls.get(i));
+        }
+    }
+
+    // Deletes the mapping in both directions (used by link expiry); false when id is unknown.
+    // Stores whose files are append-only do not support it.
+    default boolean remove(long id) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removal");
+    }
+
+    // Visits every mapping; may or may not see mappings added while it runs
+    void forEach(MappingConsumer action);
+
+    long size();
+}